@@ -3,11 +3,13 @@ package org.schoolproject.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan(basePackages = {"org.schoolproject.backend.entities"})
 @EnableScheduling
+@EnableAsync
 public class BackendApplication {
 
 	public static void main(String[] args) {
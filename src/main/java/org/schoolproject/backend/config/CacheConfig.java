@@ -0,0 +1,45 @@
+package org.schoolproject.backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cache applicatif (Spring @Cacheable) en mémoire, adossé à Caffeine.
+ * Les évictions faites dans une transaction ne sont appliquées qu'après le commit,
+ * pour qu'une lecture concurrente ne remette pas en cache une donnée périmée.
+ * Les statistiques sont publiées par Actuator sous `cache.gets` (hit / miss).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String RECIPES = "recipes";
+    public static final String PROFILE_STATS = "profileStats";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.recipes.maximum-size:10000}") long maximumSize,
+                                     @Value("${cache.recipes.ttl-minutes:10}") long ttlMinutes,
+                                     @Value("${cache.profile-stats.maximum-size:50000}") long statsMaximumSize,
+                                     @Value("${cache.profile-stats.ttl-seconds:300}") long statsTtlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(RECIPES);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats());
+        // Compteurs de profil : évincés à chaque écriture, la durée de vie ne borne que la dérive éventuelle
+        cacheManager.registerCustomCache(PROFILE_STATS, Caffeine.newBuilder()
+                .maximumSize(statsMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(statsTtlSeconds))
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -17,7 +17,7 @@ public class CorsConfig {
                         .allowedOrigins("http://localhost:3000") // Votre frontend
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // Inclut OPTIONS pour les preflight
                         .allowedHeaders("Authorization", "Content-Type", "*") // Autorise tous les en-têtes, y compris Authorization
-                        .exposedHeaders("Set-Cookie") // Permet au frontend de voir Set-Cookie si nécessaire
+                        .exposedHeaders("Set-Cookie", "ETag", "Last-Modified") // Set-Cookie et en-têtes de cache conditionnel
                         .allowCredentials(true); // Nécessaire pour les cookies avec withCredentials
             }
         };
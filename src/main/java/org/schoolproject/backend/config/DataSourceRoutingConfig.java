@@ -0,0 +1,138 @@
+package org.schoolproject.backend.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Routage lecture / écriture, actif dès que datasource.replica.urls est renseigné (sinon la DataSource
+ * auto-configurée par Spring Boot reste en place).
+ * Les transactions @Transactional(readOnly = true) passent sur un réplica choisi par ReplicaRoutingDataSource,
+ * toutes les autres sur le primaire. LazyConnectionDataSourceProxy retarde l'obtention de la connexion
+ * jusqu'à la première instruction, une fois le drapeau lecture seule posé par le gestionnaire de transactions.
+ * Une requête HTTP d'écriture (POST, PUT, PATCH, DELETE) fixe l'utilisateur sur le primaire pendant
+ * datasource.replica.sticky-ms ; la requête est alors marquée pour que SingleFlight ne lui serve pas un résultat partagé.
+ * Les pools Hikari, créés ici et non par Spring Boot, sont fermés à l'arrêt du contexte, après l'EntityManagerFactory.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.urls")
+public class DataSourceRoutingConfig implements WebMvcConfigurer, DisposableBean {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+                                 @Value("${datasource.replica.urls}") List<String> replicaUrls,
+                                 @Value("${datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                 @Value("${datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                 @Value("${datasource.replica.max-lag-ms:1000}") long maxLagMs,
+                                 @Value("${datasource.replica.sticky-ms:5000}") long stickyMs) {
+        // Réglages communs des pools : ceux de spring.datasource.hikari
+        HikariConfig base = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(base));
+        base.setDriverClassName(properties.determineDriverClassName());
+        base.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        HikariDataSource primary = pool(base, "primary", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), false);
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String key = "replica-" + i;
+            replicas.add(new ReplicaRoutingDataSource.Replica(key,
+                    pool(base, key, replicaUrls.get(i).trim(), replicaUsername, replicaPassword, true)));
+        }
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, maxLagMs, stickyMs);
+        routingDataSource.getReplicas().forEach(replica -> Gauge.builder("db.replica.lag", replica, ReplicaRoutingDataSource.Replica::lagMs)
+                .description("Retard de rejeu du réplica (ms)")
+                .tag("replica", replica.key())
+                .register(meterRegistry));
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(routingDataSource);
+        return dataSource;
+    }
+
+    // Une connexion par transaction (et non par session) : avec l'EntityManager ouvert pendant toute la requête,
+    // chaque transaction d'une même requête peut ainsi changer de base
+    @Bean
+    public HibernatePropertiesCustomizer connectionPerTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.check-interval-ms:2000}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas();
+        }
+    }
+
+    // La configuration porte la méthode de fabrique de dataSource : elle n'est détruite qu'après ses utilisateurs
+    @Override
+    public void destroy() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                UUID userId = ReplicaRoutingDataSource.currentUserId();
+                if (userId == null || routingDataSource == null) {
+                    return true;
+                }
+                if (!SAFE_METHODS.contains(request.getMethod())) {
+                    routingDataSource.markWrite(userId);
+                }
+                if (routingDataSource.isSticky(userId)) {
+                    request.setAttribute(ReplicaRoutingDataSource.PRIMARY_READS_ATTRIBUTE, Boolean.TRUE);
+                }
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+
+    private static HikariDataSource pool(HikariConfig base, String name, String url, String username, String password,
+                                         boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        base.copyStateTo(config);
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setReadOnly(readOnly);
+        return new HikariDataSource(config);
+    }
+}
@@ -43,11 +43,13 @@ public class JwtUtil {
                 .compact();
     }
 
-    //  Génération du Refresh Token
-    public String generateRefreshToken(UUID userId, String email) {
+    //  Génération du Refresh Token : jti propre au jeton et famille issue de la connexion (rotation)
+    public String generateRefreshToken(UUID userId, String email, UUID tokenId, UUID familyId) {
         return Jwts.builder()
                 .setSubject(email)
+                .id(tokenId.toString())
                 .claim("userId", userId.toString())
+                .claim("family", familyId.toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + refreshTokenExpiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
@@ -65,6 +67,22 @@ public class JwtUtil {
         return userId != null ? UUID.fromString(userId) : null;
     }
 
+    //  Extraire le jti (null pour un token émis sans identifiant)
+    public UUID extractTokenId(String token) {
+        String tokenId = extractClaim(token, Claims::getId);
+        return tokenId != null ? UUID.fromString(tokenId) : null;
+    }
+
+    //  Extraire la famille d'un refresh token
+    public UUID extractFamilyId(String token) {
+        String familyId = extractClaim(token, claims -> claims.get("family", String.class));
+        return familyId != null ? UUID.fromString(familyId) : null;
+    }
+
+    public long getRefreshTokenExpiration() {
+        return refreshTokenExpiration;
+    }
+
     //  Vérifier si le token est valide
     public boolean validateToken(String token) {
         try {
@@ -0,0 +1,22 @@
+package org.schoolproject.backend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Branche la collecte des métriques SQL par endpoint sur Spring MVC.
+ * Les métriques sont exposées sur /actuator/prometheus.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final QueryMetricsCollector queryMetricsCollector;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryMetricsCollector).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,126 @@
+package org.schoolproject.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encodeur de mots de passe dont le hachage (BCrypt, volontairement coûteux en CPU) tourne sur un pool borné
+ * à la taille de la machine, et non sur les threads de requête. Les variantes *Async rendent la main tout de suite :
+ * les endpoints d'authentification retournent un CompletableFuture et aucun thread Tomcat n'attend le hachage.
+ * La file est courte (de l'ordre de la taille du pool) : au-delà, l'appel est refusé immédiatement
+ * (RejectedExecutionException, 503) plutôt que de laisser s'accumuler les requêtes.
+ * Métriques : password.hash.queue (attente dans la file) et password.hash (durée du calcul), par opération.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    // Durée moyenne (lissée) d'une vérification, rejouée pour les e-mails inconnus
+    private volatile double averageMatchNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hash.executor");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(matchesAsync(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hachage sans bloquer l'appelant ; le futur se termine sur un thread du pool.
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit("encode", () -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Vérification sans bloquer l'appelant ; le futur se termine sur un thread du pool.
+     */
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        return submit("matches", () -> delegate.matches(rawPassword, encodedPassword))
+                .whenComplete((matches, error) ->
+                        averageMatchNanos = averageMatchNanos * 0.9 + (System.nanoTime() - start) * 0.1);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Refus d'un e-mail inconnu : ni hachage ni CPU, mais un futur qui se termine après la durée habituelle
+     * d'une vérification, pour que le temps de réponse ne révèle pas l'existence du compte.
+     */
+    public CompletableFuture<Void> rejectUnknownUser() {
+        return CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor((long) averageMatchNanos, TimeUnit.NANOSECONDS));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Refus immédiat (RejectedExecutionException) si le pool et sa file sont pleins
+    private <T> CompletableFuture<T> submit(String operation, Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            meterRegistry.timer("password.hash.queue", "operation", operation)
+                    .record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                sample.stop(meterRegistry.timer("password.hash", "operation", operation));
+            }
+        });
+        return future;
+    }
+
+    // Appels synchrones restants (changement de mot de passe, suppression de compte)
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
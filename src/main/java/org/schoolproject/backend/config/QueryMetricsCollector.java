@@ -0,0 +1,115 @@
+package org.schoolproject.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compte les requêtes SQL exécutées par endpoint et signale les requêtes lentes.
+ * Enregistré à la fois comme listener datasource-proxy et comme intercepteur MVC :
+ * l'intercepteur ouvre le contexte de la requête HTTP, le listener l'alimente.
+ */
+@Component
+public class QueryMetricsCollector implements QueryExecutionListener, AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetricsCollector.class);
+    private static final String NO_ENDPOINT = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowQueryThresholdMs;
+    private final ThreadLocal<RequestQueryStats> currentRequest = new ThreadLocal<>();
+
+    public QueryMetricsCollector(MeterRegistry meterRegistry,
+                                 @Value("${metrics.db.slow-query-threshold-ms:200}") long slowQueryThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThresholdMs = slowQueryThresholdMs;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        currentRequest.set(new RequestQueryStats(request.getMethod(), uri));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestQueryStats stats = currentRequest.get();
+        currentRequest.remove();
+        if (stats == null) {
+            return;
+        }
+        DistributionSummary.builder("db.queries.per.request")
+                .description("Nombre de requêtes SQL exécutées par requête HTTP")
+                .tag("method", stats.method)
+                .tag("uri", stats.uri)
+                .register(meterRegistry)
+                .record(stats.queryCount);
+    }
+
+    // Traitement asynchrone (CompletableFuture, StreamingResponseBody) : afterCompletion ne passera pas sur ce thread,
+    // le contexte est retiré ici pour ne pas être attribué à la requête suivante servie par le même thread Tomcat
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        currentRequest.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // rien à faire avant l'exécution, la durée est fournie par ExecutionInfo
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestQueryStats stats = currentRequest.get();
+        String uri = NO_ENDPOINT;
+        if (stats != null) {
+            stats.queryCount += Math.max(queryInfoList.size(), 1);
+            uri = stats.uri;
+        }
+
+        long elapsedMs = execInfo.getElapsedTime();
+        Timer.builder("db.query")
+                .description("Durée des requêtes SQL par endpoint")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(elapsedMs, TimeUnit.MILLISECONDS);
+
+        if (elapsedMs >= slowQueryThresholdMs) {
+            Counter.builder("db.query.slow")
+                    .description("Requêtes SQL dépassant le seuil de lenteur")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+            logger.warn("Requête lente ({} ms) sur {} : {}", elapsedMs, uri, sql);
+        }
+    }
+
+    private static final class RequestQueryStats {
+        private final String method;
+        private final String uri;
+        private int queryCount;
+
+        private RequestQueryStats(String method, String uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+    }
+}
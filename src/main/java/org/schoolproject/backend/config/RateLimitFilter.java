@@ -0,0 +1,148 @@
+package org.schoolproject.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.schoolproject.backend.dto.CustomUserDetails;
+import org.schoolproject.backend.services.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limitation de débit des routes coûteuses, placée après JwtFilter pour connaître l'utilisateur.
+ * Les politiques (rate-limit.policies) sont examinées dans l'ordre ; la première qui correspond
+ * au chemin et à la méthode s'applique. Au-delà : 429 avec Retry-After, compté dans ratelimit.rejected par route.
+ * L'adresse IP est celle du client derrière le reverse proxy (server.forward-headers-strategy).
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    // Utilisées si aucune politique n'est configurée
+    private static final List<RateLimitPolicy> DEFAULT_POLICIES = List.of(
+            // Avant "auth" : chaque onglet rafraîchit sa session, une IP partagée ne doit pas les bloquer
+            new RateLimitPolicy("refresh", List.of("/api/auth/refresh-token", "/api/auth/verify-refresh-token"),
+                    List.of("POST"), 20, 30, RateLimitPolicy.KeyType.REFRESH_TOKEN),
+            new RateLimitPolicy("auth", List.of("/api/auth/**"), List.of("POST"), 10, 10, RateLimitPolicy.KeyType.IP),
+            new RateLimitPolicy("search", List.of("/api/recipes/public/search"), List.of("GET"), 30, 60, RateLimitPolicy.KeyType.USER),
+            new RateLimitPolicy("toggles", List.of("/api/likes/recipe/*", "/api/saved-recipes/recipe/*",
+                    "/api/followers/*/follow/*"), List.of("POST"), 30, 60, RateLimitPolicy.KeyType.USER),
+            new RateLimitPolicy("export", List.of("/api/recipes/export", "/api/user/export"), List.of("GET"), 2, 2,
+                    RateLimitPolicy.KeyType.USER),
+            new RateLimitPolicy("import", List.of("/api/recipes/import"), List.of("POST"), 2, 2,
+                    RateLimitPolicy.KeyType.USER));
+
+    private final RateLimiter rateLimiter;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<RateLimitPolicy> policies;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter, JwtUtil jwtUtil, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           Environment environment) {
+        this.rateLimiter = rateLimiter;
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        boolean enabled = environment.getProperty("rate-limit.enabled", Boolean.class, true);
+        this.policies = !enabled ? List.of() : Binder.get(environment)
+                .bind("rate-limit.policies", Bindable.listOf(RateLimitPolicy.class))
+                .orElse(DEFAULT_POLICIES);
+        logger.info("Limitation de débit : {}", enabled ? policies.stream().map(RateLimitPolicy::name).toList() : "désactivée");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitPolicy policy = findPolicy(request);
+        if (policy != null) {
+            RateLimiter.Decision decision = rateLimiter.tryConsume(policy.name() + ":" + clientKey(request, policy), policy);
+            if (!decision.allowed()) {
+                reject(response, policy, decision.retryAfterSeconds());
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitPolicy findPolicy(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitPolicy policy : policies) {
+            if (!policy.methods().isEmpty() && policy.methods().stream().noneMatch(request.getMethod()::equalsIgnoreCase)) {
+                continue;
+            }
+            if (policy.paths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request, RateLimitPolicy policy) {
+        if (policy.key() == RateLimitPolicy.KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+                return "user:" + userDetails.getId();
+            }
+        }
+        if (policy.key() == RateLimitPolicy.KeyType.REFRESH_TOKEN) {
+            // Signature vérifiée : un cookie forgé ne permet pas de changer de seau
+            String refreshToken = refreshTokenCookie(request);
+            if (refreshToken != null && jwtUtil.validateToken(refreshToken)) {
+                return "user:" + jwtUtil.extractUserId(refreshToken);
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static String refreshTokenCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        return Arrays.stream(cookies)
+                .filter(cookie -> "refreshToken".equals(cookie.getName()))
+                .map(Cookie::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void reject(HttpServletResponse response, RateLimitPolicy policy, long retryAfterSeconds) throws IOException {
+        rejections.computeIfAbsent(policy.name(), route -> Counter.builder("ratelimit.rejected")
+                .description("Requêtes refusées par la limitation de débit")
+                .tag("route", route)
+                .register(meterRegistry)).increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "status", String.valueOf(HttpStatus.TOO_MANY_REQUESTS.value()),
+                "error", "Too Many Requests",
+                "message", "Too many requests, please retry later"));
+    }
+}
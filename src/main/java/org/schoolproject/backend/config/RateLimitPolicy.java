@@ -0,0 +1,26 @@
+package org.schoolproject.backend.config;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Politique de limitation d'une famille de routes (rate-limit.policies[n].*) :
+ * capacity requêtes en rafale, puis refill-per-minute requêtes par minute, par utilisateur ou par adresse IP.
+ * methods vide = toutes les méthodes.
+ */
+public record RateLimitPolicy(String name,
+                              List<String> paths,
+                              @DefaultValue List<String> methods,
+                              @DefaultValue("20") int capacity,
+                              @DefaultValue("60") int refillPerMinute,
+                              @DefaultValue("user") KeyType key) {
+
+    public enum KeyType {
+        // Utilisateur authentifié, adresse IP à défaut
+        USER,
+        // Utilisateur du refresh token (cookie), adresse IP à défaut : routes de rafraîchissement sans access token
+        REFRESH_TOKEN,
+        IP
+    }
+}
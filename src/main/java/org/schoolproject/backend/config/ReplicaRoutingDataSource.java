@@ -0,0 +1,170 @@
+package org.schoolproject.backend.config;
+
+import org.schoolproject.backend.dto.CustomUserDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Choix de la base pour les transactions en lecture seule : un réplica en bonne santé (tourniquet),
+ * sinon le primaire. Le primaire est aussi utilisé pendant stickyMs après une écriture de l'utilisateur courant,
+ * pour qu'il relise ce qu'il vient d'écrire même si les réplicas ont du retard.
+ * La santé des réplicas (joignable, retard de rejeu sous maxLagMs) est mise à jour par checkReplicas().
+ * close() ferme les pools du primaire et des réplicas.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    static final String PRIMARY = "primary";
+    // Posé sur la requête HTTP dont l'utilisateur est dans sa fenêtre de cohérence
+    static final String PRIMARY_READS_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".PRIMARY_READS";
+
+    // Retard en millisecondes ; 0 si le réplica a rejoué tout ce qu'il a reçu ou s'il n'est pas en réplication
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final long stickyMs;
+    private final Map<UUID, Long> stickyUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    static final class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        private volatile double lagMs;
+
+        Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+
+        String key() {
+            return key;
+        }
+
+        double lagMs() {
+            return lagMs;
+        }
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long maxLagMs, long stickyMs) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMs = maxLagMs;
+        this.stickyMs = stickyMs;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.key, replica.dataSource));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        UUID userId = currentUserId();
+        if (userId != null && isSticky(userId)) {
+            return PRIMARY;
+        }
+        List<Replica> healthy = replicas.stream().filter(replica -> replica.healthy).toList();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size())).key;
+    }
+
+    /**
+     * Lectures de l'utilisateur sur le primaire pendant la fenêtre de cohérence.
+     */
+    public void markWrite(UUID userId) {
+        stickyUntil.put(userId, System.currentTimeMillis() + stickyMs);
+    }
+
+    public void checkReplicas() {
+        long now = System.currentTimeMillis();
+        stickyUntil.values().removeIf(until -> until < now);
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                replica.lagMs = resultSet.getDouble(1);
+                replica.healthy = replica.lagMs <= maxLagMs;
+            } catch (SQLException e) {
+                replica.healthy = false;
+                logger.debug("Réplica {} injoignable : {}", replica.key, e.getMessage());
+            }
+            if (wasHealthy != replica.healthy) {
+                logger.warn("Réplica {} {} (retard {} ms)", replica.key,
+                        replica.healthy ? "réintégré" : "écarté, lectures sur le primaire", (long) replica.lagMs);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> closePool(replica.key, replica.dataSource));
+        closePool(PRIMARY, primary);
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    boolean isSticky(UUID userId) {
+        Long until = stickyUntil.get(userId);
+        return until != null && until >= System.currentTimeMillis();
+    }
+
+    private static void closePool(String key, DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable pool) {
+            try {
+                pool.close();
+            } catch (Exception e) {
+                logger.warn("Fermeture du pool {} en échec : {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Vrai si les lectures de la requête HTTP courante sont fixées sur le primaire (écriture récente de l'utilisateur) :
+     * un résultat lu par un autre appelant, peut-être sur un réplica en retard, ne doit pas lui être servi.
+     */
+    public static boolean readsPinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && Boolean.TRUE.equals(attributes.getAttribute(PRIMARY_READS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getId();
+        }
+        return null;
+    }
+}
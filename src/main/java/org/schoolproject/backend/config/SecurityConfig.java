@@ -1,8 +1,12 @@
 package org.schoolproject.backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -12,10 +16,13 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
@@ -25,14 +32,15 @@ public class SecurityConfig {
     private 
 final UserDetailsService userDetailsService;
     private final JwtFilter jwtFilter;
+    private final RateLimitFilter rateLimitFilter;
     /**
      * Définit le `AuthenticationProvider` qui récupère les utilisateurs via `UserDetailsServiceImpl`
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -54,21 +62,58 @@ final UserDetailsService userDetailsService;
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll() // Autorise l'authentification
                         .requestMatchers("/ws/**").permitAll() // autorise l'endpoint websocket
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // sonde et scrape Prometheus
                         .anyRequest().authenticated() // Toutes les autres routes nécessitent un JWT valide
                 )
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class); // Filtrage des requêtes avec JWT
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class) // Filtrage des requêtes avec JWT
+                .addFilterAfter(rateLimitFilter, JwtFilter.class); // Limitation de débit, utilisateur connu
 
         return http.build();
     }
 
     /**
-     * Définit l'encodeur de mot de passe (BCrypt)
+     * Définit l'encodeur de mot de passe (BCrypt, coût security.password.bcrypt-strength), exécuté sur un pool dédié.
+     * Les nouveaux hachages sont préfixés {bcrypt} ; les anciens, sans préfixe, restent vérifiés par BCrypt
+     * et sont ré-encodés à la connexion suivante (upgradeEncoding), de même qu'un hachage de coût inférieur.
      */
+    @Bean
+    public OffloadingPasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength,
+                                                     @Value("${security.password.hash-threads:0}") int threads,
+                                                     @Value("${security.password.hash-queue-capacity:0}") int queueCapacity,
+                                                     MeterRegistry meterRegistry) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // File de la taille du pool : un débordement devient un 503 rapide au lieu d'une longue attente
+        return new OffloadingPasswordEncoder(delegating, poolSize, queueCapacity > 0 ? queueCapacity : poolSize, meterRegistry);
+    }
 
+    /**
+     * Exécuteur des étapes qui suivent un hachage (écritures en base, stockage de la photo de profil) :
+     * une base ou un disque lent y fait attendre ces threads, et non ceux du pool de hachage.
+     * File pleine : RejectedExecutionException, soit un 503.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor authIoExecutor(@Value("${security.auth-io.threads:16}") int threads,
+                                                 @Value("${security.auth-io.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("auth-io-");
+        return executor;
+    }
 
+    /**
+     * Le filtre de limitation ne doit tourner que dans la chaîne de sécurité (après JwtFilter) :
+     * sans cela, l'enregistrement automatique des @Component le placerait avant, sans utilisateur connu.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
 
 //    @Bean
@@ -0,0 +1,71 @@
+package org.schoolproject.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Détecte les threads virtuels épinglés à leur carrier (blocage dans un bloc `synchronized`
+ * ou un appel natif) grâce à l'événement JFR `jdk.VirtualThreadPinned`.
+ * Chaque occurrence est comptée dans `jvm.threads.virtual.pinned` et journalisée avec la frame fautive.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Counter pinnedCounter;
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${virtual-threads.pinning.threshold-ms:20}") long thresholdMs) {
+        this.pinnedCounter = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Threads virtuels bloqués alors qu'ils étaient épinglés à leur carrier")
+                .register(meterRegistry);
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        logger.info("Surveillance de l'épinglage des threads virtuels active (seuil {} ms)", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        String frame = "inconnue";
+        if (event.getStackTrace() != null) {
+            frame = event.getStackTrace().getFrames().stream()
+                    .filter(RecordedFrame::isJavaFrame)
+                    .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                    .filter(f -> f.startsWith("org.schoolproject"))
+                    .findFirst()
+                    .orElse(event.getStackTrace().getFrames().isEmpty() ? "inconnue" : event.getStackTrace().getFrames().get(0).toString());
+        }
+        logger.warn("Thread virtuel épinglé pendant {} ms dans {}", event.getDuration().toMillis(), frame);
+    }
+
+    @Override
+    public void destroy() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
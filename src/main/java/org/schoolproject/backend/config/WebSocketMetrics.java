@@ -0,0 +1,67 @@
+package org.schoolproject.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.concurrent.Executor;
+import java.util.function.ToIntFunction;
+
+/**
+ * Gauges du broker STOMP : sessions ouvertes et profondeur des files entrante / sortante.
+ */
+@Component
+public class WebSocketMetrics implements MeterBinder {
+
+    private final WebSocketMessageBrokerStats brokerStats;
+    private final Executor inboundExecutor;
+    private final Executor outboundExecutor;
+
+    public WebSocketMetrics(WebSocketMessageBrokerStats brokerStats,
+                            @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+                            @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor) {
+        this.brokerStats = brokerStats;
+        this.inboundExecutor = inboundExecutor;
+        this.outboundExecutor = outboundExecutor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("websocket.sessions", brokerStats, stats -> sessionStat(stats, SubProtocolWebSocketHandler.Stats::getTotalSessions))
+                .description("Sessions WebSocket / SockJS ouvertes")
+                .tag("transport", "all")
+                .register(registry);
+        Gauge.builder("websocket.sessions", brokerStats, stats -> sessionStat(stats, SubProtocolWebSocketHandler.Stats::getWebSocketSessions))
+                .description("Sessions WebSocket / SockJS ouvertes")
+                .tag("transport", "websocket")
+                .register(registry);
+
+        bindChannel(registry, "inbound", inboundExecutor);
+        bindChannel(registry, "outbound", outboundExecutor);
+    }
+
+    private void bindChannel(MeterRegistry registry, String channel, Executor executor) {
+        if (!(executor instanceof ThreadPoolTaskExecutor pool)) {
+            return; // exécuteur sans file observable (ex : threads virtuels)
+        }
+        Gauge.builder("websocket.channel.queue.size", pool, p -> p.getThreadPoolExecutor().getQueue().size())
+                .description("Messages STOMP en attente dans le canal client")
+                .tag("channel", channel)
+                .register(registry);
+        Gauge.builder("websocket.channel.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Threads occupés à traiter le canal client")
+                .tag("channel", channel)
+                .register(registry);
+    }
+
+    private static double sessionStat(WebSocketMessageBrokerStats stats,
+                                      ToIntFunction<SubProtocolWebSocketHandler.Stats> getter) {
+        SubProtocolWebSocketHandler.Stats sessionStats = stats.getWebSocketSessionStats();
+        return sessionStats != null ? getter.applyAsInt(sessionStats) : 0;
+    }
+}
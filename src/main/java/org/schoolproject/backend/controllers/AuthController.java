@@ -18,6 +18,7 @@ import org.springframework.web.multipart.MultipartHttpServletRequest;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -61,7 +62,7 @@ public class AuthController {
      * Finalise l'inscription après vérification du code
      */
     @PostMapping(value = "/complete-registration", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, Object>> register(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> register(
             MultipartHttpServletRequest request,
             HttpServletResponse response) {
         logger.info("Received registration request");
@@ -95,10 +96,16 @@ public class AuthController {
             logger.debug("UserDTO: lastName={}, firstName={}, address={}, email={}, code={}, profilePic provided: {}",
                     lastName, firstName, address, email,code, profilePic != null);
 
-            // finalisation
-            Map<String, Object> authResponse = authService.completeRegistration(userDTO,code,profilePic, response);
-            logger.info("Registration successful for email: {}", email);
-            return ResponseEntity.ok(authResponse);
+            // finalisation (hachage hors du thread de requête)
+            return authService.completeRegistration(userDTO, code, profilePic, response)
+                    .whenComplete((authResponse, error) -> {
+                        if (error != null) {
+                            logger.error("Registration failed", error);
+                        } else {
+                            logger.info("Registration successful for email: {}", email);
+                        }
+                    })
+                    .thenApply(ResponseEntity::ok);
         } catch (Exception e) {
             logger.error("Registration failed", e);
             throw e; // Propager l'exception pour gestion par @ExceptionHandler
@@ -131,7 +138,7 @@ public class AuthController {
      * Connexion d'un utilisateur
      */
     @PostMapping("/login")
-    public ResponseEntity<Map<String, Object>> login(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> login(
             @RequestBody Map<String, String> loginData,
             HttpServletResponse response) {
         logger.info("Received login request");
@@ -144,9 +151,15 @@ public class AuthController {
             logger.info("Login attempt for email: {}", email);
             logger.debug("Email: {}, Password length: {}", email, password.length());
 
-            Map<String, Object> authResponse = authService.login(email, password, response);
-            logger.info("Login successful for email: {}", email);
-            return ResponseEntity.ok(authResponse);
+            return authService.login(email, password, response)
+                    .whenComplete((authResponse, error) -> {
+                        if (error != null) {
+                            logger.error("Login failed", error);
+                        } else {
+                            logger.info("Login successful for email: {}", email);
+                        }
+                    })
+                    .thenApply(ResponseEntity::ok);
         } catch (Exception e) {
             logger.error("Login failed", e);
             throw e;
@@ -224,7 +237,7 @@ public class AuthController {
      * Rafraîchir le token en lisant le refreshToken depuis les cookies
      */
     @PostMapping("/refresh-token")
-    public ResponseEntity<Map<String, String>> refreshToken(HttpServletRequest request) {
+    public ResponseEntity<Map<String, String>> refreshToken(HttpServletRequest request, HttpServletResponse response) {
         logger.info("Requête reçue pour rafraîchir le token");
 
         try {
@@ -235,7 +248,7 @@ public class AuthController {
             }
             logger.debug("refreshToken extrait des cookies: {}", refreshToken);
 
-            String newAccessToken = authService.refreshAccessToken(refreshToken);
+            String newAccessToken = authService.refreshAccessToken(refreshToken, response);
             logger.debug("Nouveau accessToken généré: {}", newAccessToken);
 
             Map<String, String> responseBody = new HashMap<>();
@@ -248,6 +261,15 @@ public class AuthController {
         }
     }
 
+    /**
+     * Déconnexion : révoque le refreshToken des cookies et supprime le cookie
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, String>> logout(HttpServletRequest request, HttpServletResponse response) {
+        logger.info("Requête reçue pour la déconnexion");
+        return ResponseEntity.ok(authService.logout(getRefreshTokenFromCookies(request), response));
+    }
+
     /**
      * Initie le processus de réinitialisation du mot de passe
      */
@@ -268,7 +290,7 @@ public class AuthController {
      * Réinitialise le mot de passe avec un token valide
      */
     @PostMapping("/reset-password")
-    public ResponseEntity<Map<String, Object>> resetPassword(@RequestBody Map<String, String> requestBody) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> resetPassword(@RequestBody Map<String, String> requestBody) {
 
         String token = requestBody.get("token");
         String newPassword = requestBody.get("newPassword");
@@ -276,8 +298,7 @@ public class AuthController {
         if (token == null || token.trim().isEmpty() || newPassword == null || newPassword.trim().isEmpty()) {
             throw new IllegalArgumentException("Token and new password required");
         }
-        Map<String, Object> responseBody = authService.resetPassword(token, newPassword);
-        return ResponseEntity.ok(responseBody);
+        return authService.resetPassword(token, newPassword).thenApply(ResponseEntity::ok);
     }
 
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package org.schoolproject.backend.controllers;
 
+import org.schoolproject.backend.dto.CursorPageDTO;
+import org.schoolproject.backend.dto.RelationshipStatusDTO;
+import org.schoolproject.backend.dto.UserCardDTO;
 import org.schoolproject.backend.entities.User;
 import org.schoolproject.backend.services.FollowerService;
+import org.schoolproject.backend.services.ResourceVersionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -15,9 +21,11 @@ import java.util.UUID;
 public class FollowerController {
 
     private final FollowerService followerService;
+    private final ResourceVersionService resourceVersionService;
 
-    public FollowerController(FollowerService followerService) {
+    public FollowerController(FollowerService followerService, ResourceVersionService resourceVersionService) {
         this.followerService = followerService;
+        this.resourceVersionService = resourceVersionService;
     }
 
 
@@ -42,16 +50,53 @@ public class FollowerController {
 
     // Obtenir la liste des abonnés
     @GetMapping("/{userId}/followers")
-    public ResponseEntity<List<?>> getFollowers(@PathVariable UUID userId) {
+    public ResponseEntity<List<?>> getFollowers(@PathVariable UUID userId, ServletWebRequest webRequest) {
+        if (resourceVersionService.isNotModified(webRequest, ResourceVersionService.followersKey(userId))) {
+            return null; // 304 Not Modified
+        }
         return ResponseEntity.ok(followerService.getFollowers(userId));
     }
 
     // Obtenir la liste des abonnements
     @GetMapping("/{userId}/following")
-    public ResponseEntity<List<?>> getFollowing(@PathVariable UUID userId) {
+    public ResponseEntity<List<?>> getFollowing(@PathVariable UUID userId, ServletWebRequest webRequest) {
+        if (resourceVersionService.isNotModified(webRequest, ResourceVersionService.followingKey(userId))) {
+            return null; // 304 Not Modified
+        }
         return ResponseEntity.ok(followerService.getFollowing(userId));
     }
 
+    // Statut d'abonnement (dans les deux sens) pour une liste d'utilisateurs, en une requête : boutons "Suivre" d'une liste
+    @PostMapping("/{userId}/relationships")
+    public ResponseEntity<Map<UUID, RelationshipStatusDTO>> getRelationships(@PathVariable UUID userId,
+                                                                            @RequestBody List<UUID> targetIds) {
+        return ResponseEntity.ok(followerService.getRelationships(userId, targetIds));
+    }
+
+    // Abonnés paginés par curseur (cartes légères, plus récents d'abord)
+    @GetMapping("/{userId}/followers/page")
+    public ResponseEntity<CursorPageDTO<UserCardDTO>> getFollowersPage(@PathVariable UUID userId,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "20") int size,
+                                                                      ServletWebRequest webRequest) {
+        if (resourceVersionService.isNotModified(webRequest, ResourceVersionService.followersKey(userId))) {
+            return null; // 304 Not Modified
+        }
+        return ResponseEntity.ok(followerService.getFollowersPage(userId, cursor, size));
+    }
+
+    // Abonnements paginés par curseur
+    @GetMapping("/{userId}/following/page")
+    public ResponseEntity<CursorPageDTO<UserCardDTO>> getFollowingPage(@PathVariable UUID userId,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "20") int size,
+                                                                      ServletWebRequest webRequest) {
+        if (resourceVersionService.isNotModified(webRequest, ResourceVersionService.followingKey(userId))) {
+            return null; // 304 Not Modified
+        }
+        return ResponseEntity.ok(followerService.getFollowingPage(userId, cursor, size));
+    }
+
     // Obtenir le nombre d'abonnés
     @GetMapping("/{userId}/followers/count")
     public ResponseEntity<Integer> getFollowerCount(@PathVariable UUID userId) {
@@ -81,4 +126,15 @@ public class FollowerController {
     ) {
         return ResponseEntity.ok(followerService.searchUsers(userId, query));
     }
+
+    // Autocomplétion : cartes utilisateur paginées par curseur, servies depuis l'index en mémoire
+    @GetMapping("/{userId}/search/page")
+    public ResponseEntity<CursorPageDTO<UserCardDTO>> searchUsersPage(
+            @PathVariable UUID userId,
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(followerService.searchUsersPage(userId, query, cursor, size));
+    }
 }
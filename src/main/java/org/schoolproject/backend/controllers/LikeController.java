@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -24,18 +25,18 @@ public class LikeController {
     }
 
     @PostMapping("/recipe/{recipeId}")
-    public ResponseEntity<Like> toggleLike(@PathVariable int recipeId, HttpServletRequest request) {
+    public ResponseEntity<Boolean> toggleLike(@PathVariable int recipeId, HttpServletRequest request) {
         String token = jwtUtil.extractToken(request);
         if (!jwtUtil.validateToken(token)) {
             throw new IllegalArgumentException("Invalid JWT token");
         }
         UUID userId = jwtUtil.extractUserId(token);
 
-        Like like = likeService.toggleLike(userId, recipeId);
-        if (like == null) {
-            return new ResponseEntity<>(null, HttpStatus.OK); // Unlike status 200
+        boolean liked = likeService.toggleLike(userId, recipeId);
+        if (!liked) {
+            return new ResponseEntity<>(false, HttpStatus.OK); // Unlike status 200
         } else {
-            return new ResponseEntity<>(like, HttpStatus.CREATED); // Like status 201
+            return new ResponseEntity<>(true, HttpStatus.CREATED); // Like status 201
         }
     }
 
@@ -63,6 +64,18 @@ public class LikeController {
         return new ResponseEntity<>(liked, HttpStatus.OK);
     }
 
+    // Statut "liké" d'une liste de recettes en une requête
+    @PostMapping("/status")
+    public ResponseEntity<Map<Integer, Boolean>> getLikeStatuses(@RequestBody List<Integer> recipeIds, HttpServletRequest request) {
+        String token = jwtUtil.extractToken(request);
+        if (!jwtUtil.validateToken(token)) {
+            throw new SecurityException("Invalid JWT token");
+        }
+        UUID userId = jwtUtil.extractUserId(token);
+
+        return ResponseEntity.ok(likeService.getLikeStatuses(userId, recipeIds));
+    }
+
     @GetMapping("/recipe/{recipeId}/list")
     public ResponseEntity<List<Like>> getLikesByRecipe(@PathVariable int recipeId) {
         List<Like> likes = likeService.getLikesByRecipe(recipeId);
@@ -1,5 +1,6 @@
 package org.schoolproject.backend.controllers;
 
+import org.schoolproject.backend.dto.CursorPageDTO;
 import org.schoolproject.backend.dto.NotificationDTO;
 import org.schoolproject.backend.services.NotificationService;
 import org.springframework.http.HttpStatus;
@@ -36,6 +37,14 @@ public class NotificationController {
         return new ResponseEntity<>(notifications, HttpStatus.OK);
     }
 
+    // Boîte de réception paginée par curseur (plus récentes d'abord)
+    @GetMapping("/{userId}/page")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getInboxPage(@PathVariable UUID userId,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(notificationService.getInboxPage(userId, cursor, size));
+    }
+
     // Récupérer le nombre de notifications non lues
     @GetMapping("/{userId}/unread")
     public ResponseEntity<Integer> getUnreadCount(@PathVariable UUID userId) {
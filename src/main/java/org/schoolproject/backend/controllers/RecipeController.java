@@ -2,16 +2,28 @@ package org.schoolproject.backend.controllers;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.schoolproject.backend.config.JwtUtil;
+import org.schoolproject.backend.dto.CursorPageDTO;
+import org.schoolproject.backend.dto.PantryMatchDTO;
 import org.schoolproject.backend.dto.RecipeDTO;
 import org.schoolproject.backend.dto.RecipeFormDTO;
+import org.schoolproject.backend.dto.RecipeImportStatusDTO;
 import org.schoolproject.backend.mappers.RecipeMapper;
+import org.schoolproject.backend.services.ExportService;
+import org.schoolproject.backend.services.IngredientIndex;
+import org.schoolproject.backend.services.RecipeImportService;
 import org.schoolproject.backend.services.RecipeService;
+import org.schoolproject.backend.services.ResourceVersionService;
+import org.schoolproject.backend.services.SimilarRecipeIndex;
+import org.schoolproject.backend.services.TimelineService;
+import org.schoolproject.backend.services.TrendingService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -24,11 +36,29 @@ public class RecipeController {
     private final RecipeService recipeService;
     private final JwtUtil jwtUtil;
     private final RecipeMapper recipeMapper;
+    private final ResourceVersionService resourceVersionService;
+    private final TimelineService timelineService;
+    private final TrendingService trendingService;
+    private final IngredientIndex ingredientIndex;
+    private final SimilarRecipeIndex similarRecipeIndex;
+    private final ExportService exportService;
+    private final RecipeImportService recipeImportService;
 
-    public RecipeController(RecipeService recipeService, JwtUtil jwtUtil, RecipeMapper recipeMapper) {
+    public RecipeController(RecipeService recipeService, JwtUtil jwtUtil, RecipeMapper recipeMapper,
+                            ResourceVersionService resourceVersionService, TimelineService timelineService,
+                            TrendingService trendingService, IngredientIndex ingredientIndex,
+                            SimilarRecipeIndex similarRecipeIndex, ExportService exportService,
+                            RecipeImportService recipeImportService) {
         this.recipeService = recipeService;
         this.jwtUtil = jwtUtil;
         this.recipeMapper = recipeMapper;
+        this.resourceVersionService = resourceVersionService;
+        this.timelineService = timelineService;
+        this.trendingService = trendingService;
+        this.ingredientIndex = ingredientIndex;
+        this.similarRecipeIndex = similarRecipeIndex;
+        this.exportService = exportService;
+        this.recipeImportService = recipeImportService;
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -47,6 +77,32 @@ public class RecipeController {
         return ResponseEntity.ok(createdRecipe);
     }
 
+    // Import en masse : archive ZIP (recipes.json ou recipes.csv + images), traitée en arrière-plan
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<RecipeImportStatusDTO> importRecipes(
+            @RequestPart("archive") MultipartFile archive,
+            HttpServletRequest request) {
+        String token = jwtUtil.extractToken(request);
+        if (!jwtUtil.validateToken(token)) {
+            throw new SecurityException("Invalid JWT token");
+        }
+        UUID userId = jwtUtil.extractUserId(token);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(recipeImportService.requestImport(userId, archive));
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<RecipeImportStatusDTO> getImportStatus(@PathVariable UUID jobId, HttpServletRequest request) {
+        String token = jwtUtil.extractToken(request);
+        if (!jwtUtil.validateToken(token)) {
+            throw new SecurityException("Invalid JWT token");
+        }
+        UUID userId = jwtUtil.extractUserId(token);
+        return recipeImportService.getStatus(jobId)
+                .filter(status -> status.getUserId().equals(userId))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<RecipeDTO> updateRecipe(
             @PathVariable int id,
@@ -84,31 +140,53 @@ public class RecipeController {
     @GetMapping("/{id}")
     public ResponseEntity<RecipeDTO> findRecipeById(
             @PathVariable int id,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            ServletWebRequest webRequest) {
         String token = jwtUtil.extractToken(request);
         if (!jwtUtil.validateToken(token)) {
             throw new SecurityException("Invalid JWT token");
         }
         UUID userId = jwtUtil.extractUserId(token);
 
+        // Propriétaire déjà connu : le contrôle d'accès et le 304 se font sans base de données
+        Optional<UUID> knownOwner = resourceVersionService.recipeOwner(id);
+        if (knownOwner.isPresent() && knownOwner.get().equals(userId)
+                && resourceVersionService.isNotModified(webRequest,
+                        ResourceVersionService.recipeKey(id), ResourceVersionService.userKey(userId))) {
+            return null; // 304 Not Modified
+        }
+
         Optional<RecipeDTO> recipeOptional = recipeService.findRecipeById(id);
         if (recipeOptional.isPresent()) {
             RecipeDTO recipe = recipeOptional.get();
+            resourceVersionService.rememberRecipeOwner(id, recipe.getUserId());
             if (!recipe.getUserId().equals(userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
+            // Premier accès : la version n'a pas pu être lue avant le chargement, l'ETag viendra à la prochaine requête
             return ResponseEntity.ok(recipe);
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
     @GetMapping
-    public ResponseEntity<List<RecipeDTO>> findAllRecipes() {
-        return ResponseEntity.ok(recipeService.findAllRecipes());
+    public ResponseEntity<Page<RecipeDTO>> findAllRecipes(@RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(recipeService.findAllRecipes(page, size));
+    }
+
+    // Toutes les recettes en NDJSON, écrites au fil de la lecture
+    @GetMapping(value = "/export", produces = ExportService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportRecipes() {
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(ExportService.NDJSON))
+                .body(exportService.exportRecipes());
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<RecipeDTO>> findRecipeByUserId(@PathVariable UUID userId) {
+    public ResponseEntity<List<RecipeDTO>> findRecipeByUserId(@PathVariable UUID userId, ServletWebRequest webRequest) {
+        if (resourceVersionService.isNotModified(webRequest, ResourceVersionService.userKey(userId))) {
+            return null; // 304 Not Modified
+        }
         return ResponseEntity.ok(recipeService.findRecipesByUserId(userId));
     }
     /*@GetMapping("/public")
@@ -182,6 +260,46 @@ public class RecipeController {
         return ResponseEntity.ok(recipes);
     }
 
+    // Fil d'accueil : recettes des comptes suivis, paginées par curseur
+    @GetMapping("/timeline")
+    public ResponseEntity<CursorPageDTO<RecipeDTO>> getHomeTimeline(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            HttpServletRequest request
+    ) {
+        String token = jwtUtil.extractToken(request);
+        if (!jwtUtil.validateToken(token)) {
+            throw new SecurityException("Invalid JWT token");
+        }
+        UUID userId = jwtUtil.extractUserId(token);
+        return ResponseEntity.ok(timelineService.getHomeTimeline(userId, cursor, size));
+    }
+
+    // Recettes tendance (likes, enregistrements, commentaires récents), servies depuis la mémoire
+    @GetMapping("/trending")
+    public ResponseEntity<List<RecipeDTO>> getTrendingRecipes(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(trendingService.getTrending(category, limit));
+    }
+
+    // "Plus de recettes comme celle-ci" : voisins précalculés
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<RecipeDTO>> getSimilarRecipes(@PathVariable int id,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(similarRecipeIndex.findSimilar(id, limit));
+    }
+
+    // "Cuisiner avec ce que j'ai" : recettes classées par part d'ingrédients disponibles
+    @PostMapping("/pantry")
+    public ResponseEntity<List<PantryMatchDTO>> matchPantry(
+            @RequestBody List<String> pantry,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(ingredientIndex.match(pantry, limit));
+    }
+
     // récupérer les recettes avec les informations de l'utilisateur
     @GetMapping("/user-info/{userId}")
     public ResponseEntity<List<RecipeDTO>> findRecipesWithUserInfo(@PathVariable UUID userId) {
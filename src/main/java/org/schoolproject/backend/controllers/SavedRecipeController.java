@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -26,17 +27,17 @@ public class SavedRecipeController {
     }
 
     @PostMapping("/recipe/{recipeId}")
-    public ResponseEntity<SavedRecipe> toggleSavedRecipe(@PathVariable int recipeId, HttpServletRequest request) {
+    public ResponseEntity<Boolean> toggleSavedRecipe(@PathVariable int recipeId, HttpServletRequest request) {
         String token = jwtUtil.extractToken(request);
         if (!jwtUtil.validateToken(token)) {
             throw new SecurityException("Invalid JWT token");
         }
         UUID userId = jwtUtil.extractUserId(token);
 
-        SavedRecipe savedRecipe = savedRecipeService.toggleSavedRecipe(userId, recipeId);
-        return savedRecipe != null ?
-                ResponseEntity.status(HttpStatus.CREATED).body(savedRecipe) :
-                ResponseEntity.ok(null); // null signifie désenregistrement
+        boolean saved = savedRecipeService.toggleSavedRecipe(userId, recipeId);
+        return saved ?
+                ResponseEntity.status(HttpStatus.CREATED).body(true) :
+                ResponseEntity.ok(false); // false signifie désenregistrement
     }
 
     @DeleteMapping("/recipe/{recipeId}")
@@ -75,6 +76,18 @@ public class SavedRecipeController {
         return ResponseEntity.ok(exists);
     }
 
+    // Statut "enregistrée" d'une liste de recettes en une requête
+    @PostMapping("/status")
+    public ResponseEntity<Map<Integer, Boolean>> getSavedStatuses(@RequestBody List<Integer> recipeIds, HttpServletRequest request) {
+        String token = jwtUtil.extractToken(request);
+        if (!jwtUtil.validateToken(token)) {
+            throw new SecurityException("Invalid JWT token");
+        }
+        UUID userId = jwtUtil.extractUserId(token);
+
+        return ResponseEntity.ok(savedRecipeService.getSavedStatuses(userId, recipeIds));
+    }
+
     @DeleteMapping
     public ResponseEntity<Void> clearAllSavedRecipes(HttpServletRequest request) {
         String token = jwtUtil.extractToken(request);
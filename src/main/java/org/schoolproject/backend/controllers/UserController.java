@@ -1,16 +1,24 @@
 package org.schoolproject.backend.controllers;
 
+import org.schoolproject.backend.dto.AccountDeletionStatusDTO;
+import org.schoolproject.backend.dto.ProfileStatsDTO;
 import org.schoolproject.backend.dto.UserDTO;
+import org.schoolproject.backend.services.AccountDeletionService;
+import org.schoolproject.backend.services.ExportService;
+import org.schoolproject.backend.services.ProfileStatsService;
+import org.schoolproject.backend.services.ResourceVersionService;
 import org.schoolproject.backend.services.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -18,10 +26,20 @@ import java.util.UUID;
 @RequestMapping("/api/user")
 public class UserController {
     private final UserService userService;
+    private final ResourceVersionService resourceVersionService;
+    private final AccountDeletionService accountDeletionService;
+    private final ProfileStatsService profileStatsService;
+    private final ExportService exportService;
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ResourceVersionService resourceVersionService,
+                          AccountDeletionService accountDeletionService, ProfileStatsService profileStatsService,
+                          ExportService exportService) {
         this.userService = userService;
+        this.resourceVersionService = resourceVersionService;
+        this.accountDeletionService = accountDeletionService;
+        this.profileStatsService = profileStatsService;
+        this.exportService = exportService;
     }
 
     @PostMapping(consumes = {"multipart/form-data"})
@@ -64,9 +82,18 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDTO>> findAllUsers() {
-        logger.info("Requête reçue pour récupérer tous les utilisateurs");
-        return ResponseEntity.ok(userService.findAllUsers());
+    public ResponseEntity<Page<UserDTO>> findAllUsers(@RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "50") int size) {
+        logger.info("Requête reçue pour récupérer les utilisateurs (page {})", page);
+        return ResponseEntity.ok(userService.findAllUsers(page, size));
+    }
+
+    // Tous les utilisateurs en NDJSON, écrits au fil de la lecture
+    @GetMapping(value = "/export", produces = ExportService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        logger.info("Requête reçue pour exporter les utilisateurs");
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(ExportService.NDJSON))
+                .body(exportService.exportUsers());
     }
 
     @GetMapping("/exists/{email}")
@@ -120,10 +147,24 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable UUID id) {
+    public ResponseEntity<AccountDeletionStatusDTO> deleteUser(@PathVariable UUID id) {
         logger.info("Requête reçue pour supprimer l'utilisateur avec ID: {}", id);
         userService.deleteUser(id);
-        return ResponseEntity.noContent().build();
+        // La suppression se poursuit en arrière-plan : progression sur GET /api/user/{id}/deletion
+        return ResponseEntity.accepted().body(accountDeletionService.getStatus(id).orElse(null));
+    }
+
+    // En-tête de profil : abonnés, abonnements, recettes et likes reçus en un appel
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<ProfileStatsDTO> getProfileStats(@PathVariable UUID id) {
+        return ResponseEntity.ok(profileStatsService.getProfileStats(id));
+    }
+
+    @GetMapping("/{id}/deletion")
+    public ResponseEntity<AccountDeletionStatusDTO> getDeletionStatus(@PathVariable UUID id) {
+        return accountDeletionService.getStatus(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/{id}/verify-password")
@@ -159,8 +200,11 @@ public class UserController {
     }
 
     @GetMapping("/profile/{id}")
-    public ResponseEntity<UserDTO> getUserProfile(@PathVariable UUID id) {
+    public ResponseEntity<UserDTO> getUserProfile(@PathVariable UUID id, ServletWebRequest webRequest) {
         logger.info("Requête reçue pour récupérer le profil utilisateur avec ID: {}", id);
+        if (resourceVersionService.isNotModified(webRequest, ResourceVersionService.userKey(id))) {
+            return null; // 304 Not Modified
+        }
         return userService.getUserProfile(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
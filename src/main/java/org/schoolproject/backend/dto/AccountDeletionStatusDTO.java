@@ -0,0 +1,25 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountDeletionStatusDTO {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private UUID userId;
+    private Status status;
+    private String step;          // étape en cours : comments, likes, saved_recipes, notifications, followers, recipes, user
+    private long deletedRows;
+    private int deletedFiles;
+    private LocalDateTime requestedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,43 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Page d'une liste parcourue par curseur (keyset) : le client renvoie nextCursor pour obtenir la suite,
+ * null quand la liste est épuisée. Contrairement à une pagination par offset, le coût d'une page
+ * ne dépend pas de sa position et les insertions concurrentes ne décalent pas les résultats.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Position (date, identifiant) du dernier élément renvoyé.
+     */
+    public record Cursor(LocalDateTime at, long id) {
+    }
+
+    public static String encodeCursor(LocalDateTime at, long id) {
+        String raw = at + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
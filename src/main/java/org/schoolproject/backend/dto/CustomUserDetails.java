@@ -49,7 +49,7 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return true;
+        return user.getDeletedAt() == null; // compte en cours de suppression
     }
 
     public UUID getId(){
@@ -28,4 +28,5 @@ public class NotificationDTO {
     private boolean seen;
     private Integer relatedEntityId;  // ID de l'entité liée (recette) ou null si user
     private String entityType;  // Type d'entité (user ou recipe)
+    private int eventCount;  // Nombre d'événements regroupés (1 si isolé)
 }
@@ -0,0 +1,19 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// Recette proposée pour un garde-manger : part des ingrédients déjà disponibles et ce qu'il manque
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PantryMatchDTO {
+    private RecipeDTO recipe;
+    private int matched;
+    private int total;
+    private double coverage;       // matched / total
+    private List<String> missing;
+}
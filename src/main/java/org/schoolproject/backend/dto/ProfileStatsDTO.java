@@ -0,0 +1,18 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProfileStatsDTO {
+    private UUID userId;
+    private long followers;
+    private long following;
+    private long recipes;
+    private long likes;  // total des likes reçus sur les recettes de l'utilisateur
+}
@@ -0,0 +1,26 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Recette telle qu'exportée (/api/recipes/export) : l'auteur est réduit à UserExportDTO
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeExportDTO {
+    private int id;
+    private String title;
+    private String description;
+    private String ingredients;
+    private String preparation;
+    private String category;
+    private String image;
+    private LocalDateTime creationDate;
+    private LocalDateTime updatedDate;
+    private UUID userId;
+    private UserExportDTO user;
+}
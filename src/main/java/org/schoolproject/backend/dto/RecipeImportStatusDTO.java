@@ -0,0 +1,30 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeImportStatusDTO {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private UUID jobId;
+    private UUID userId;
+    private Status status;
+    private int processed;        // lignes lues dans le manifeste
+    private int imported;
+    private int rejected;
+    @Builder.Default
+    private List<String> errors = new CopyOnWriteArrayList<>();   // « ligne N : motif », tronquée (lue pendant l'import)
+    private LocalDateTime requestedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,13 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RelationshipStatusDTO {
+    private boolean following;   // l'utilisateur courant suit la cible
+    private boolean followedBy;  // la cible suit l'utilisateur courant
+}
@@ -0,0 +1,24 @@
+package org.schoolproject.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Carte utilisateur des listes d'abonnés / abonnements : uniquement ce que la liste affiche
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserCardDTO {
+    private UUID idUser;
+    private String firstName;
+    private String lastName;
+    private String profilePic;
+    private LocalDateTime followedAt;
+
+    @JsonIgnore
+    private int followId;  // départage les égalités de followedAt dans le curseur
+}
@@ -23,7 +23,10 @@ public class UserDTO {
     private String profilePic;
     private LocalDateTime created;
 
+    // Jamais sérialisés : le jeton n'est transmis que par le lien envoyé par e-mail
+    @JsonIgnore
     private String resetToken;
+    @JsonIgnore
     private LocalDateTime resetTokenExpiredAt;
 
     @JsonIgnore
@@ -0,0 +1,20 @@
+package org.schoolproject.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Utilisateur tel qu'exporté (/api/user/export, auteur des recettes exportées) : ni e-mail, ni adresse, ni jeton de réinitialisation
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserExportDTO {
+    private UUID idUser;
+    private String lastName;
+    private String firstName;
+    private String profilePic;
+    private LocalDateTime created;
+}
@@ -7,7 +7,12 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "followers")
+@Table(name = "followers", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"follower_id", "followed_id"})
+}, indexes = {
+        @Index(name = "idx_followers_followed", columnList = "followed_id, followed_at DESC, id_follow DESC"),
+        @Index(name = "idx_followers_follower", columnList = "follower_id, followed_at DESC, id_follow DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -7,7 +7,14 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Boîte de réception paginée par curseur
+        @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at DESC, id_notif DESC"),
+        // Purge de rétention
+        @Index(name = "idx_notifications_created", columnList = "created_at"),
+        // Regroupement : notification non lue du même groupe à compléter
+        @Index(name = "idx_notifications_user_group", columnList = "user_id, group_key")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,11 +26,11 @@ public class Notification {
     @Column(name = "id_notif", updatable = false, nullable = false)
     private int idNotif;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
 
@@ -34,7 +41,7 @@ public class Notification {
     private String message;
 
     @CreationTimestamp
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at")  // avancée quand une notification regroupée est complétée
     private LocalDateTime createdAt;
 
     @Column(name = "is_read", columnDefinition = "false")
@@ -48,4 +55,11 @@ public class Notification {
 
     @Column(name = "entity_type", length = 50)
     private String entityType;  // 'user' ou 'recipe' ou 'comment'
+
+    @Column(name = "group_key", length = 100)
+    private String groupKey;  // ex. 'comment:42' ; null pour une notification non regroupée
+
+    @Builder.Default
+    @Column(name = "event_count", columnDefinition = "integer default 1")
+    private int eventCount = 1;  // Nombre d'événements regroupés dans cette notification
 }
@@ -0,0 +1,37 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Auteur distinct d'un événement regroupé dans une notification (« Alice and 3 others… » compte les personnes,
+ * pas les événements). Écrit par NotificationAggregator ; supprimé avec la notification ou le compte de l'auteur.
+ */
+@Entity
+@Table(name = "notification_actors", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_notification_actor", columnNames = {"notification_id", "actor_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationActor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_notification_actor", nullable = false, updatable = false)
+    private long idNotificationActor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "notification_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Notification notification;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "actor_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User actor;
+}
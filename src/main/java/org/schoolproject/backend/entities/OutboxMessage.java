@@ -0,0 +1,44 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Message WebSocket en attente d'envoi, écrit dans la même transaction que la donnée qu'il annonce :
+ * rien ne part si la transaction est annulée, et rien n'est perdu si l'application s'arrête avant l'envoi.
+ * Une ligne réservée (locked_until dans le futur) est en cours d'envoi ; elle est supprimée une fois envoyée.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_locked_until", columnList = "locked_until, id_message")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_message", nullable = false, updatable = false)
+    private long idMessage;
+
+    @Column(nullable = false, length = 200)
+    private String destination;
+
+    // Corps JSON, sérialisé une seule fois à l'écriture
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(nullable = false)
+    private int attempts;
+}
@@ -2,6 +2,8 @@ package org.schoolproject.backend.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
@@ -13,6 +15,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "recipes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // cache de second niveau (region org.schoolproject.backend.entities.Recipe)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,37 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Ingrédient normalisé d'une recette (minuscules, sans accents, quantités et unités retirées),
+ * extrait du texte libre Recipe.ingredients à chaque création / modification.
+ */
+@Entity
+@Table(name = "recipe_ingredients", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recipe_ingredient", columnNames = {"recipe_id", "name"})
+}, indexes = {
+        @Index(name = "idx_recipe_ingredients_name", columnList = "name")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeIngredient {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_recipe_ingredient", nullable = false, updatable = false)
+    private long idRecipeIngredient;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipe_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Recipe recipe;
+
+    @Column(length = 100, nullable = false)
+    private String name;
+}
@@ -0,0 +1,45 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Voisin précalculé d'une recette (« recettes similaires »), rangé par similarité décroissante.
+ * Réécrit par SimilarRecipeIndex ; supprimé avec l'une ou l'autre des deux recettes.
+ */
+@Entity
+@Table(name = "recipe_neighbours", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recipe_neighbour", columnNames = {"recipe_id", "neighbour_id"})
+}, indexes = {
+        @Index(name = "idx_recipe_neighbours_rank", columnList = "recipe_id, neighbour_rank")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeNeighbour {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_neighbour", nullable = false, updatable = false)
+    private long idNeighbour;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipe_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Recipe recipe;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "neighbour_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Recipe neighbour;
+
+    @Column(nullable = false)
+    private double similarity;
+
+    @Column(name = "neighbour_rank", nullable = false)
+    private int neighbourRank;
+}
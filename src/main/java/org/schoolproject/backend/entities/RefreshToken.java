@@ -0,0 +1,79 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Refresh token émis (identifié par le jti du JWT), rattaché à une famille : la connexion crée une famille,
+ * chaque rafraîchissement consomme le jeton (used_at) et en émet un nouveau dans la même famille.
+ * Présenter un jeton déjà consommé révoque toute la famille (vol probable) ; la révocation est posée
+ * sur toutes les lignes de la famille (revoked_at).
+ * L'identifiant est attribué à l'émission : Persistable indique à save() un persist direct, sans SELECT préalable.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_tokens_revoked", columnList = "revoked_at"),
+        @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken implements Persistable<UUID> {
+
+    @Id
+    @Column(name = "token_id", nullable = false, updatable = false)
+    private UUID tokenId;
+
+    @Column(name = "family_id", nullable = false, updatable = false)
+    private UUID familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Renseigné quand le jeton a servi à un rafraîchissement
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public UUID getId() {
+        return tokenId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
+}
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "saved_recipes")
+@Table(name = "saved_recipes", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"user_id", "recipe_id"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
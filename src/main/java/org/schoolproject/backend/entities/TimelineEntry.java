@@ -0,0 +1,51 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Fil d'accueil matérialisé : une ligne par (abonné, recette) d'un compte suivi, écrite à la publication.
+ * La lecture d'une page est un parcours de l'index (user_id, created_at, recipe_id) ;
+ * les lignes disparaissent avec la recette ou l'abonné (ON DELETE CASCADE).
+ */
+@Entity
+@Table(name = "timeline_entries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_timeline_user_recipe", columnNames = {"user_id", "recipe_id"})
+}, indexes = {
+        @Index(name = "idx_timeline_user_created", columnList = "user_id, created_at DESC, recipe_id DESC")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimelineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_entry", nullable = false, updatable = false)
+    private long idEntry;
+
+    // Propriétaire du fil
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipe_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Recipe recipe;
+
+    @Column(name = "author_id", nullable = false)
+    private UUID authorId;
+
+    // Date de création de la recette, recopiée pour que l'index suffise au tri
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Instantané périodique du top des tendances, relu au démarrage : le classement survit à un redémarrage
+ * au lieu de repartir de zéro. Le score est la valeur décroissante à computed_at.
+ */
+@Entity
+@Table(name = "trending_scores")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendingScore {
+
+    @Id
+    @Column(name = "recipe_id", nullable = false, updatable = false)
+    private int recipeId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(length = 30)
+    private String category;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
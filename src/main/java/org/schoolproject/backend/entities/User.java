@@ -3,6 +3,8 @@ package org.schoolproject.backend.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
@@ -11,6 +13,8 @@ import java.util.*;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // cache de second niveau (region org.schoolproject.backend.entities.User)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -51,6 +55,11 @@ public class User {
     @Column(name = "reset_token_expired_at")
     private LocalDateTime resetTokenExpiredAt;
 
+    // Pierre tombale : renseignée dès la demande de suppression, la ligne est supprimée ensuite en arrière-plan
+    @JsonIgnore
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @JsonIgnore
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -0,0 +1,37 @@
+package org.schoolproject.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Compteurs dénormalisés de l'en-tête de profil, tenus à jour dans les transactions d'écriture
+ * (abonnement, recette, like) et recalculés par ProfileStatsServiceImpl.reconcile en cas de dérive.
+ * Une ligne absente signifie « à recalculer » : elle est reconstruite à partir des COUNT à la lecture suivante.
+ */
+@Entity
+@Table(name = "user_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserStats {
+
+    @Id
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Column(name = "follower_count", nullable = false)
+    private long followerCount;
+
+    @Column(name = "following_count", nullable = false)
+    private long followingCount;
+
+    @Column(name = "recipe_count", nullable = false)
+    private long recipeCount;
+
+    @Column(name = "like_count", nullable = false)
+    private long likeCount;  // likes reçus sur l'ensemble des recettes
+}
@@ -1,5 +1,6 @@
 package org.schoolproject.backend.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -7,6 +8,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 
@@ -41,6 +43,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(status).body(response);
     }
 
+    // Pool saturé (ex. hachage des mots de passe) : le client peut réessayer
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> rejectedExecutionExceptionHandler(RejectedExecutionException ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", String.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        response.put("error", "Service Unavailable");
+        response.put("message", "Server busy, please retry");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> generalExceptionHandler(Exception ex) {
         Map<String, String> response = new HashMap<>();
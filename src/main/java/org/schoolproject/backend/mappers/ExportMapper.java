@@ -0,0 +1,18 @@
+package org.schoolproject.backend.mappers;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.schoolproject.backend.dto.RecipeExportDTO;
+import org.schoolproject.backend.dto.UserExportDTO;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.entities.User;
+
+@Mapper(componentModel = "spring")
+public interface ExportMapper {
+
+    UserExportDTO toExport(User user);
+
+    @Mapping(target = "id", source = "idRecipe")
+    @Mapping(target = "userId", source = "user.idUser")
+    RecipeExportDTO toExport(Recipe recipe);
+}
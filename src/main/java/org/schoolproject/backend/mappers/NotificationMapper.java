@@ -31,7 +31,8 @@ public interface NotificationMapper {
             @Mapping(source = "title", target = "title"),
             @Mapping(source = "message", target = "message"),
             @Mapping(source = "createdAt", target = "createdAt"),
-            @Mapping(source = "read", target = "read")  // Utilisation de la propriété read dans l'entité
+            @Mapping(source = "read", target = "read"),  // Utilisation de la propriété read dans l'entité
+            @Mapping(target = "groupKey", ignore = true)  // posée uniquement par NotificationAggregator
     })
     Notification toEntity(NotificationDTO notificationDTO);
 }
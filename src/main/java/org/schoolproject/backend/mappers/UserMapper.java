@@ -21,6 +21,7 @@ public interface UserMapper {
     @Mapping(target = "recipes", ignore = true)
     UserDTO toDto(User user);
 
+    @Mapping(target = "deletedAt", ignore = true)
     User toEntity(UserDTO userDTO);
 
 
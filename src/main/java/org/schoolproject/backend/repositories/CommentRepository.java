@@ -1,10 +1,37 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.schoolproject.backend.entities.Comment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
     List<Comment> findAllByRecipeIdRecipeOrderByCreatedAtDesc(int recipeId);
+
+    // Supprime un lot de commentaires écrits par l'utilisateur ou posés sur ses recettes, réponses comprises.
+    // parent_id n'a pas de ON DELETE : seules les feuilles de l'arbre partent à chaque passe, appeler en boucle jusqu'à 0
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            WITH RECURSIVE doomed AS (
+                SELECT id_comment FROM comments
+                WHERE user_id = :userId OR recipe_id IN (SELECT id_recipe FROM recipes WHERE user_id = :userId)
+                UNION
+                SELECT c.id_comment FROM comments c JOIN doomed d ON c.parent_id = d.id_comment
+            )
+            DELETE FROM comments WHERE id_comment IN (
+                SELECT d.id_comment FROM doomed d
+                WHERE NOT EXISTS (SELECT 1 FROM comments c WHERE c.parent_id = d.id_comment)
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "comments"))
+    int deleteLeafBatchByUserId(UUID userId, int batchSize);
 }
@@ -1,11 +1,20 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.schoolproject.backend.dto.UserCardDTO;
 import org.schoolproject.backend.entities.Follower;
 import org.schoolproject.backend.entities.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,8 +31,6 @@ public interface FollowerRepository extends JpaRepository<Follower, Integer> {
     int countByFollower(User follower);
     int countByFollowed(User followed);
 
-    @Query("SELECT u FROM User u WHERE LOWER(u.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(u.firstName) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<User> findByLastNameContainingIgnoreCaseOrFirstNameContainingIgnoreCase(String query, String query2);
     Optional<Follower> findByFollowerIdUserAndFollowedIdUser(UUID followerId, UUID followedId);
     List<Follower> findAllByFollowedIdUser(UUID userId);
     List<Follower> findAllByFollowerIdUser(UUID userId);
@@ -34,4 +41,68 @@ public interface FollowerRepository extends JpaRepository<Follower, Integer> {
     @Query("SELECT f.follower FROM Follower f WHERE f.followed.idUser = :followedId")
     List<User> findFollowersByFollowedId(UUID followedId);
 
+    // Identifiants seuls, sans charger les entités User
+    @Query("SELECT f.followed.idUser FROM Follower f WHERE f.follower.idUser = :followerId")
+    List<UUID> findFollowedIdsByFollowerId(UUID followerId);
+
+    // Comptes suivis dont le nombre d'abonnés dépasse le seuil de diffusion (lus à la demande dans le fil d'accueil)
+    @Query("SELECT f.followed.idUser FROM Follower f, UserStats s " +
+            "WHERE s.userId = f.followed.idUser AND f.follower.idUser = :followerId AND s.followerCount > :threshold")
+    List<UUID> findFollowedIdsWithFollowersAbove(UUID followerId, long threshold);
+
+    @Query("SELECT f.follower.idUser FROM Follower f WHERE f.followed.idUser = :followedId")
+    List<UUID> findFollowerIdsByFollowedId(UUID followedId);
+
+    // Relations dans les deux sens entre un utilisateur et une liste de cibles : paires [follower, followed]
+    @Query("SELECT f.follower.idUser, f.followed.idUser FROM Follower f " +
+            "WHERE (f.follower.idUser = :userId AND f.followed.idUser IN :targetIds) " +
+            "OR (f.followed.idUser = :userId AND f.follower.idUser IN :targetIds)")
+    List<Object[]> findRelationships(UUID userId, Collection<UUID> targetIds);
+
+    // Listes paginées par curseur (followedAt, idFollow) décroissant, servies par les index idx_followers_followed / idx_followers_follower
+    @Query("SELECT new org.schoolproject.backend.dto.UserCardDTO(u.idUser, u.firstName, u.lastName, u.profilePic, f.followedAt, f.idFollow) " +
+            "FROM Follower f JOIN f.follower u WHERE f.followed.idUser = :userId AND u.deletedAt IS NULL " +
+            "ORDER BY f.followedAt DESC, f.idFollow DESC")
+    List<UserCardDTO> findFollowerCards(UUID userId, Limit limit);
+
+    @Query("SELECT new org.schoolproject.backend.dto.UserCardDTO(u.idUser, u.firstName, u.lastName, u.profilePic, f.followedAt, f.idFollow) " +
+            "FROM Follower f JOIN f.follower u WHERE f.followed.idUser = :userId AND u.deletedAt IS NULL " +
+            "AND (f.followedAt < :beforeAt OR (f.followedAt = :beforeAt AND f.idFollow < :beforeId)) " +
+            "ORDER BY f.followedAt DESC, f.idFollow DESC")
+    List<UserCardDTO> findFollowerCardsBefore(UUID userId, LocalDateTime beforeAt, int beforeId, Limit limit);
+
+    @Query("SELECT new org.schoolproject.backend.dto.UserCardDTO(u.idUser, u.firstName, u.lastName, u.profilePic, f.followedAt, f.idFollow) " +
+            "FROM Follower f JOIN f.followed u WHERE f.follower.idUser = :userId AND u.deletedAt IS NULL " +
+            "ORDER BY f.followedAt DESC, f.idFollow DESC")
+    List<UserCardDTO> findFollowingCards(UUID userId, Limit limit);
+
+    @Query("SELECT new org.schoolproject.backend.dto.UserCardDTO(u.idUser, u.firstName, u.lastName, u.profilePic, f.followedAt, f.idFollow) " +
+            "FROM Follower f JOIN f.followed u WHERE f.follower.idUser = :userId AND u.deletedAt IS NULL " +
+            "AND (f.followedAt < :beforeAt OR (f.followedAt = :beforeAt AND f.idFollow < :beforeId)) " +
+            "ORDER BY f.followedAt DESC, f.idFollow DESC")
+    List<UserCardDTO> findFollowingCardsBefore(UUID userId, LocalDateTime beforeAt, int beforeId, Limit limit);
+
+    // Abonnement en une instruction, idempotent sous concurrence : retourne 0 si déjà abonné ou utilisateur inexistant
+    @Modifying
+    @Query(value = """
+            INSERT INTO followers (follower_id, followed_id, followed_at)
+            SELECT follower.id_user, followed.id_user, now() FROM users follower, users followed
+            WHERE follower.id_user = :followerId AND followed.id_user = :followedId
+            ON CONFLICT (follower_id, followed_id) DO NOTHING
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "followers"))
+    int insertIfAbsent(UUID followerId, UUID followedId);
+
+    @Modifying
+    @Query("DELETE FROM Follower f WHERE f.follower.idUser = :followerId AND f.followed.idUser = :followedId")
+    int deleteByFollowerIdUserAndFollowedIdUser(UUID followerId, UUID followedId);
+
+    // Abonnements et abonnés d'un utilisateur, par lot (suppression de compte)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM followers WHERE id_follow IN " +
+            "(SELECT id_follow FROM followers WHERE follower_id = :userId OR followed_id = :userId LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "followers"))
+    int deleteBatchByUserId(UUID userId, int batchSize);
+
 }
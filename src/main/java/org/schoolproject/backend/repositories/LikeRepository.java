@@ -1,9 +1,16 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.schoolproject.backend.entities.Like;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,14 +24,53 @@ public interface LikeRepository extends JpaRepository<Like, Integer> {
     // Trouver tous les likes d'un utilisateur
     List<Like> findAllByUserIdUser(UUID userId);
 
+    // Parmi les recettes données, celles que l'utilisateur a likées (une seule requête IN)
+    @Query("SELECT l.recipe.idRecipe FROM Like l WHERE l.user.idUser = :userId AND l.recipe.idRecipe IN :recipeIds")
+    List<Integer> findLikedRecipeIds(UUID userId, Collection<Integer> recipeIds);
+
     // Vérifier si un utilisateur a déjà liké une recette
     boolean existsByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
 
     // Récupérer un like spécifique d'un utilisateur sur une recette
     Optional<Like> findByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
 
-    // Supprimer un like d'un utilisateur sur une recette
-    void deleteByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
+    // Supprimer un like d'un utilisateur sur une recette (une seule instruction, retourne le nombre de lignes supprimées)
+    @Modifying
+    @Query("DELETE FROM Like l WHERE l.user.idUser = :userId AND l.recipe.idRecipe = :recipeId")
+    int deleteByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
+
+    // Bascule atomique : supprime le like s'il existe, sinon l'insère (sans charger User ni Recipe).
+    // Retourne 1 si le like a été ajouté, -1 s'il a été retiré, 0 si rien n'a changé
+    // (recette ou utilisateur inexistant, ou like inséré au même moment par une autre requête)
+    @Query(value = """
+            WITH removed AS (
+                DELETE FROM likes WHERE user_id = :userId AND recipe_id = :recipeId
+                RETURNING id_like
+            ), added AS (
+                INSERT INTO likes (user_id, recipe_id, created_at)
+                SELECT u.id_user, r.id_recipe, now() FROM users u, recipes r
+                WHERE u.id_user = :userId AND r.id_recipe = :recipeId AND NOT EXISTS (SELECT 1 FROM removed)
+                ON CONFLICT (user_id, recipe_id) DO NOTHING
+                RETURNING id_like
+            )
+            SELECT CASE WHEN EXISTS (SELECT 1 FROM removed) THEN -1
+                        WHEN EXISTS (SELECT 1 FROM added) THEN 1
+                        ELSE 0 END
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "likes"))
+    int toggle(UUID userId, int recipeId);
+
+    // Suppression par lot des likes d'un utilisateur, chaque lot dans sa propre transaction
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM likes WHERE id_like IN " +
+            "(SELECT id_like FROM likes WHERE user_id = :userId LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "likes"))
+    int deleteBatchByUserIdUser(UUID userId, int batchSize);
+
+    // Auteurs des recettes likées par un utilisateur (compteurs à invalider à la suppression de son compte)
+    @Query("SELECT DISTINCT l.recipe.user.idUser FROM Like l WHERE l.user.idUser = :userId")
+    List<UUID> findLikedRecipeOwnerIds(UUID userId);
 
     // Compter le nombre de likes d'une recette
     int countByRecipeIdRecipe(int recipeId);
@@ -0,0 +1,28 @@
+package org.schoolproject.backend.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.schoolproject.backend.entities.NotificationActor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface NotificationActorRepository extends JpaRepository<NotificationActor, Long> {
+
+    // Sans effet si l'auteur figure déjà dans la notification
+    @Modifying
+    @Query(value = """
+            INSERT INTO notification_actors (notification_id, actor_id) VALUES (:notificationId, :actorId)
+            ON CONFLICT (notification_id, actor_id) DO NOTHING
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_actors"))
+    int addIfAbsent(int notificationId, UUID actorId);
+
+    @Query("SELECT count(a) FROM NotificationActor a WHERE a.notification.idNotif = :notificationId")
+    long countByNotificationId(int notificationId);
+}
@@ -1,21 +1,74 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.schoolproject.backend.entities.Notification;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 
 public interface NotificationRepository extends JpaRepository<Notification, Integer> {
+    // Expéditeur chargé dans la même requête (sender est LAZY : un SELECT par notification sinon)
+    @EntityGraph(attributePaths = "sender")
     List<Notification> findAllByUserIdUser(UUID userId);
+    @EntityGraph(attributePaths = "sender")
     List<Notification> findAllByUserIdUserOrderByCreatedAtDesc(UUID userId);
+    @EntityGraph(attributePaths = "sender")
     List<Notification> findAllByUserIdUserAndReadFalseOrderByCreatedAtDesc(UUID userId);
     int countAllByUserIdUserAndReadFalse(UUID userId);
-    void deleteAllByUserIdUser(UUID userId);
 
+    // Notification regroupée encore non lue, complétée au lieu d'en créer une nouvelle
+    @EntityGraph(attributePaths = "sender")
+    Optional<Notification> findFirstByUserIdUserAndGroupKeyAndReadFalseOrderByCreatedAtDesc(UUID userId, String groupKey);
+
+    // Boîte de réception, de la plus récente à la plus ancienne ; seul l'expéditeur est chargé (jointure unique)
+    @Query("SELECT n FROM Notification n JOIN FETCH n.sender " +
+            "WHERE n.user.idUser = :userId ORDER BY n.createdAt DESC, n.idNotif DESC")
+    List<Notification> findInbox(UUID userId, Limit limit);
+
+    @Query("SELECT n FROM Notification n JOIN FETCH n.sender WHERE n.user.idUser = :userId " +
+            "AND (n.createdAt < :beforeAt OR (n.createdAt = :beforeAt AND n.idNotif < :beforeId)) " +
+            "ORDER BY n.createdAt DESC, n.idNotif DESC")
+    List<Notification> findInboxBefore(UUID userId, LocalDateTime beforeAt, int beforeId, Limit limit);
+
+    // Rétention : un lot de notifications lues antérieures à cutoff, validé seul
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM notifications WHERE id_notif IN " +
+            "(SELECT id_notif FROM notifications WHERE is_read AND created_at < :cutoff LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    int deleteReadBatchBefore(LocalDateTime cutoff, int batchSize);
+
+    // Suppression ensembliste d'un lot (sans charger les entités), validée dans sa propre transaction :
+    // appeler en boucle tant que le lot est plein pour ne pas garder de longs verrous
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM notifications WHERE id_notif IN " +
+            "(SELECT id_notif FROM notifications WHERE user_id = :userId LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    int deleteBatchByUserIdUser(UUID userId, int batchSize);
+
+    // Notifications reçues ou envoyées par l'utilisateur (suppression de compte)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM notifications WHERE id_notif IN " +
+            "(SELECT id_notif FROM notifications WHERE user_id = :userId OR sender_id = :userId LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    int deleteBatchByUserOrSender(UUID userId, int batchSize);
+
+    @EntityGraph(attributePaths = "sender")
     List<Notification> findAllByUserIdUserAndSeenFalseOrderByCreatedAtDesc(UUID userId);
     int countAllByUserIdUserAndSeenFalse(UUID userId);
 
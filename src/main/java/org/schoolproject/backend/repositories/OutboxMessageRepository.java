@@ -0,0 +1,49 @@
+package org.schoolproject.backend.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.schoolproject.backend.entities.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Réserve un lot de messages libres jusqu'à lockedUntil, validé seul : les verrous de ligne sont relâchés
+    // avant l'envoi. SKIP LOCKED laisse plusieurs instances vider la table sans s'attendre.
+    // Retourne [id_message, destination, payload, attempts]
+    @Transactional
+    @Query(value = """
+            WITH batch AS (
+                SELECT id_message FROM outbox_messages
+                WHERE locked_until IS NULL OR locked_until < :now
+                ORDER BY id_message LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE outbox_messages o SET locked_until = :lockedUntil, attempts = o.attempts + 1
+            FROM batch WHERE o.id_message = batch.id_message
+            RETURNING o.id_message, o.destination, o.payload, o.attempts
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "outbox_messages"))
+    List<Object[]> claimBatch(LocalDateTime now, LocalDateTime lockedUntil, int batchSize);
+
+    // Réservation d'un message précis pour l'envoi immédiat après commit ; 0 si le poller l'a déjà pris
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.lockedUntil = :lockedUntil, o.attempts = o.attempts + 1 " +
+            "WHERE o.idMessage = :id AND (o.lockedUntil IS NULL OR o.lockedUntil < :now)")
+    int claim(long id, LocalDateTime now, LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxMessage o WHERE o.idMessage IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+}
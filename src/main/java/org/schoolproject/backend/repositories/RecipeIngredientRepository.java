@@ -0,0 +1,21 @@
+package org.schoolproject.backend.repositories;
+
+import org.schoolproject.backend.entities.RecipeIngredient;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredient, Long> {
+
+    @Modifying
+    @Query("DELETE FROM RecipeIngredient i WHERE i.recipe.idRecipe = :recipeId")
+    int deleteByRecipeId(int recipeId);
+
+    // Chargement de l'index en mémoire : [recipe_id, name], sans entités
+    @Query("SELECT i.recipe.idRecipe, i.name FROM RecipeIngredient i")
+    List<Object[]> findAllPairs();
+}
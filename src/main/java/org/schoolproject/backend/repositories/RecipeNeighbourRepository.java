@@ -0,0 +1,27 @@
+package org.schoolproject.backend.repositories;
+
+import org.schoolproject.backend.entities.RecipeNeighbour;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RecipeNeighbourRepository extends JpaRepository<RecipeNeighbour, Long> {
+
+    @Query("SELECT n.neighbour.idRecipe FROM RecipeNeighbour n WHERE n.recipe.idRecipe = :recipeId ORDER BY n.neighbourRank")
+    List<Integer> findNeighbourIds(int recipeId, Limit limit);
+
+    // Listes enregistrées (recette, voisin, similarité), dans l'ordre des rangs : comparées avant réécriture
+    @Query("SELECT n.recipe.idRecipe, n.neighbour.idRecipe, n.similarity FROM RecipeNeighbour n " +
+            "WHERE n.recipe.idRecipe IN :recipeIds ORDER BY n.recipe.idRecipe, n.neighbourRank")
+    List<Object[]> findNeighbourRows(Collection<Integer> recipeIds);
+
+    @Modifying
+    @Query("DELETE FROM RecipeNeighbour n WHERE n.recipe.idRecipe IN :recipeIds")
+    int deleteByRecipeIdIn(Collection<Integer> recipeIds);
+}
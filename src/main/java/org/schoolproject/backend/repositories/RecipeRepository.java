@@ -1,15 +1,24 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.schoolproject.backend.entities.Recipe;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 
 @Repository
@@ -17,6 +26,17 @@ import java.util.UUID;
 public interface RecipeRepository extends JpaRepository<Recipe, Integer>, JpaSpecificationExecutor<Recipe> {
 
     List<Recipe> findAllByUserIdUser(UUID userId);
+
+    @Query(value = "SELECT r FROM Recipe r JOIN FETCH r.user", countQuery = "SELECT COUNT(r) FROM Recipe r")
+    Page<Recipe> findAllWithUser(Pageable pageable);
+
+    // Export : curseur côté serveur lu par paquets de 500 lignes (dans une transaction), entités sans instantané
+    @Query("SELECT r FROM Recipe r JOIN FETCH r.user ORDER BY r.idRecipe")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Recipe> streamAllWithUser();
     Page<Recipe> findAllByUserIdUserNot(UUID userId, Pageable pageable);
     @Query("SELECT r FROM Recipe r JOIN FETCH r.user WHERE r.user.idUser != :userId")
     Page<Recipe> findAllByUserIdUserNotWithUser(UUID userId, Pageable pageable);
@@ -43,4 +63,62 @@ public interface RecipeRepository extends JpaRepository<Recipe, Integer>, JpaSpe
 
     // Nouvelle méthode avec tri par updatedDate DESC
     List<Recipe> findAllByUserIdUserOrderByUpdatedDateDesc(UUID userId);
+
+    // Recettes récentes d'un ensemble d'auteurs, dans l'ordre du fil d'accueil
+    @Query("SELECT r FROM Recipe r JOIN FETCH r.user WHERE r.user.idUser IN :authorIds AND r.creationDate IS NOT NULL " +
+            "ORDER BY r.creationDate DESC, r.idRecipe DESC")
+    List<Recipe> findLatestByAuthors(Collection<UUID> authorIds, Limit limit);
+
+    @Query("SELECT r FROM Recipe r JOIN FETCH r.user WHERE r.user.idUser IN :authorIds AND r.creationDate IS NOT NULL " +
+            "AND (r.creationDate < :beforeAt OR (r.creationDate = :beforeAt AND r.idRecipe < :beforeId)) " +
+            "ORDER BY r.creationDate DESC, r.idRecipe DESC")
+    List<Recipe> findLatestByAuthorsBefore(Collection<UUID> authorIds, LocalDateTime beforeAt, int beforeId, Limit limit);
+
+    // [id_recipe, category] des recettes encore présentes parmi les identifiants donnés
+    @Query("SELECT r.idRecipe, r.category FROM Recipe r WHERE r.idRecipe IN :recipeIds")
+    List<Object[]> findCategories(Collection<Integer> recipeIds);
+
+    @Query("SELECT r FROM Recipe r JOIN FETCH r.user WHERE r.idRecipe IN :recipeIds")
+    List<Recipe> findAllWithUserByIdIn(Collection<Integer> recipeIds);
+
+    // Rattrapage de l'index d'ingrédients : [id_recipe, ingredients] des recettes sans ligne dans recipe_ingredients
+    @Query("SELECT r.idRecipe, r.ingredients FROM Recipe r WHERE r.idRecipe > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM RecipeIngredient i WHERE i.recipe.idRecipe = r.idRecipe) ORDER BY r.idRecipe")
+    List<Object[]> findUnindexedIngredients(int afterId, Limit limit);
+
+    // Caractéristiques de similarité : [id_recipe, title, ingredients, category], parcourues par identifiant croissant
+    @Query("SELECT r.idRecipe, r.title, r.ingredients, r.category FROM Recipe r WHERE r.idRecipe > :afterId ORDER BY r.idRecipe")
+    List<Object[]> findSimilarityFeatures(int afterId, Limit limit);
+
+    @Query("SELECT r.idRecipe, r.title, r.ingredients, r.category FROM Recipe r WHERE r.idRecipe IN :recipeIds")
+    List<Object[]> findSimilarityFeaturesByIds(Collection<Integer> recipeIds);
+
+    @Query("SELECT r.idRecipe FROM Recipe r WHERE r.idRecipe IN :recipeIds")
+    List<Integer> findExistingIds(Collection<Integer> recipeIds);
+
+    @Query("SELECT r.user.idUser FROM Recipe r WHERE r.idRecipe = :recipeId")
+    Optional<UUID> findOwnerId(int recipeId);
+
+    // Supprime un lot de recettes de l'utilisateur avec leurs likes et enregistrements, en une instruction validée seule.
+    // Retourne [id_recipe, image] de chaque recette supprimée pour le nettoyage des fichiers et des caches
+    @Transactional
+    @Query(value = """
+            WITH doomed AS (
+                SELECT id_recipe FROM recipes WHERE user_id = :userId LIMIT :batchSize FOR UPDATE
+            ), removed_likes AS (
+                DELETE FROM likes WHERE recipe_id IN (SELECT id_recipe FROM doomed)
+            ), removed_saves AS (
+                DELETE FROM saved_recipes WHERE recipe_id IN (SELECT id_recipe FROM doomed)
+            ), removed AS (
+                DELETE FROM recipes WHERE id_recipe IN (SELECT id_recipe FROM doomed)
+                RETURNING id_recipe, image
+            )
+            SELECT id_recipe, image FROM removed
+            """, nativeQuery = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "recipes"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "likes"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "saved_recipes")
+    })
+    List<Object[]> deleteBatchByUserIdReturningImages(UUID userId, int batchSize);
 }
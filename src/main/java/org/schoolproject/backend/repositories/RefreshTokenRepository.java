@@ -0,0 +1,71 @@
+package org.schoolproject.backend.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.schoolproject.backend.entities.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    // Rotation en une instruction : consomme le jeton s'il est valide (non utilisé, non révoqué, non expiré)
+    // et émet le suivant dans la même famille. Retourne la famille, null si le jeton n'a pas pu être consommé
+    @Transactional
+    @Query(value = """
+            WITH used AS (
+                UPDATE refresh_tokens SET used_at = :now
+                WHERE token_id = :tokenId AND used_at IS NULL AND revoked_at IS NULL AND expires_at > :now
+                RETURNING family_id, user_id
+            )
+            INSERT INTO refresh_tokens (token_id, family_id, user_id, issued_at, expires_at)
+            SELECT :nextTokenId, family_id, user_id, :now, :expiresAt FROM used
+            RETURNING family_id
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    Optional<UUID> rotate(UUID tokenId, UUID nextTokenId, LocalDateTime now, LocalDateTime expiresAt);
+
+    // Mêmes conditions que rotate : le jeton pourrait être consommé maintenant
+    @Query("SELECT CASE WHEN COUNT(t) > 0 THEN true ELSE false END FROM RefreshToken t " +
+            "WHERE t.tokenId = :tokenId AND t.usedAt IS NULL AND t.revokedAt IS NULL AND t.expiresAt > :now")
+    boolean isUsable(UUID tokenId, LocalDateTime now);
+
+    @Query("SELECT t.usedAt FROM RefreshToken t WHERE t.tokenId = :tokenId")
+    Optional<LocalDateTime> findUsedAt(UUID tokenId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(UUID familyId, LocalDateTime now);
+
+    // Révoque toutes les familles de l'utilisateur et retourne leurs identifiants (avec doublons)
+    @Transactional
+    @Query(value = "UPDATE refresh_tokens SET revoked_at = :now WHERE user_id = :userId AND revoked_at IS NULL " +
+            "RETURNING family_id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    List<UUID> revokeAllByUserId(UUID userId, LocalDateTime now);
+
+    // Familles révoquées depuis since (synchronisation entre instances)
+    @Query("SELECT DISTINCT t.familyId FROM RefreshToken t WHERE t.revokedAt > :since")
+    List<UUID> findFamiliesRevokedSince(LocalDateTime since);
+
+    // Familles révoquées dont un jeton n'a pas encore expiré (reconstruction complète)
+    @Query("SELECT DISTINCT t.familyId FROM RefreshToken t WHERE t.revokedAt IS NOT NULL AND t.expiresAt > :now")
+    List<UUID> findLiveRevokedFamilies(LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM refresh_tokens WHERE token_id IN " +
+            "(SELECT token_id FROM refresh_tokens WHERE expires_at < :now LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    int deleteExpiredBatch(LocalDateTime now, int batchSize);
+}
@@ -1,13 +1,20 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.schoolproject.backend.entities.Recipe;
 import org.schoolproject.backend.entities.SavedRecipe;
 import org.schoolproject.backend.entities.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,8 +24,18 @@ public interface SavedRecipeRepository extends JpaRepository<SavedRecipe, Intege
 
     List<SavedRecipe> findAllByUserIdUser(UUID userId);
     boolean existsByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
+
+    @Query("SELECT s.recipe.idRecipe FROM SavedRecipe s WHERE s.user.idUser = :userId AND s.recipe.idRecipe IN :recipeIds")
+    List<Integer> findSavedRecipeIds(UUID userId, Collection<Integer> recipeIds);
     Optional<SavedRecipe> findByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
-    void deleteAllByUserIdUser(UUID userId);
+
+    // Suppression par lot, chaque lot dans sa propre transaction (voir NotificationRepository.deleteBatchByUserIdUser)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM saved_recipes WHERE id_save IN " +
+            "(SELECT id_save FROM saved_recipes WHERE user_id = :userId LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "saved_recipes"))
+    int deleteBatchByUserIdUser(UUID userId, int batchSize);
     void deleteByUserAndRecipe(User user, Recipe recipe);
 
 
@@ -26,5 +43,26 @@ public interface SavedRecipeRepository extends JpaRepository<SavedRecipe, Intege
     Page<SavedRecipe> findAllByUserIdUserAndRecipeCategory(UUID userId, String category, Pageable pageable);
 
 
-    void deleteByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
+    @Modifying
+    @Query("DELETE FROM SavedRecipe s WHERE s.user.idUser = :userId AND s.recipe.idRecipe = :recipeId")
+    int deleteByUserIdUserAndRecipeIdRecipe(UUID userId, int recipeId);
+
+    // Bascule atomique (voir LikeRepository.toggle) : 1 = enregistrée, -1 = retirée, 0 = inchangé
+    @Query(value = """
+            WITH removed AS (
+                DELETE FROM saved_recipes WHERE user_id = :userId AND recipe_id = :recipeId
+                RETURNING id_save
+            ), added AS (
+                INSERT INTO saved_recipes (user_id, recipe_id, date_saved)
+                SELECT u.id_user, r.id_recipe, now() FROM users u, recipes r
+                WHERE u.id_user = :userId AND r.id_recipe = :recipeId AND NOT EXISTS (SELECT 1 FROM removed)
+                ON CONFLICT (user_id, recipe_id) DO NOTHING
+                RETURNING id_save
+            )
+            SELECT CASE WHEN EXISTS (SELECT 1 FROM removed) THEN -1
+                        WHEN EXISTS (SELECT 1 FROM added) THEN 1
+                        ELSE 0 END
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "saved_recipes"))
+    int toggle(UUID userId, int recipeId);
 }
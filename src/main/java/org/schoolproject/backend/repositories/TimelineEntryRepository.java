@@ -0,0 +1,109 @@
+package org.schoolproject.backend.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.entities.TimelineEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    // Fil d'accueil, du plus récent au plus ancien
+    @Query("SELECT r FROM TimelineEntry t JOIN t.recipe r JOIN FETCH r.user " +
+            "WHERE t.user.idUser = :userId ORDER BY t.createdAt DESC, r.idRecipe DESC")
+    List<Recipe> findTimeline(UUID userId, Limit limit);
+
+    @Query("SELECT r FROM TimelineEntry t JOIN t.recipe r JOIN FETCH r.user " +
+            "WHERE t.user.idUser = :userId " +
+            "AND (t.createdAt < :beforeAt OR (t.createdAt = :beforeAt AND r.idRecipe < :beforeId)) " +
+            "ORDER BY t.createdAt DESC, r.idRecipe DESC")
+    List<Recipe> findTimelineBefore(UUID userId, LocalDateTime beforeAt, int beforeId, Limit limit);
+
+    // Diffusion d'une recette au lot d'abonnés de l'auteur qui suit afterId (parcours par follower_id croissant), validé seul.
+    // Retourne le dernier follower_id du lot, null quand tous les abonnés ont été servis
+    @Transactional
+    @Query(value = """
+            WITH batch AS (
+                SELECT follower_id FROM followers
+                WHERE followed_id = :authorId AND follower_id > :afterId
+                ORDER BY follower_id LIMIT :batchSize
+            ), inserted AS (
+                INSERT INTO timeline_entries (user_id, recipe_id, author_id, created_at)
+                SELECT follower_id, :recipeId, :authorId, :createdAt FROM batch
+                ON CONFLICT (user_id, recipe_id) DO NOTHING
+            )
+            SELECT follower_id FROM batch ORDER BY follower_id DESC LIMIT 1
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    UUID fanOutBatch(UUID authorId, int recipeId, LocalDateTime createdAt, UUID afterId, int batchSize);
+
+    // Diffusion d'un lot de recettes importées, même parcours que fanOutBatch ; les recettes supprimées entre-temps
+    // disparaissent de la jointure
+    @Transactional
+    @Query(value = """
+            WITH batch AS (
+                SELECT follower_id FROM followers
+                WHERE followed_id = :authorId AND follower_id > :afterId
+                ORDER BY follower_id LIMIT :batchSize
+            ), inserted AS (
+                INSERT INTO timeline_entries (user_id, recipe_id, author_id, created_at)
+                SELECT b.follower_id, r.id_recipe, :authorId, r.creation_date
+                FROM batch b CROSS JOIN recipes r
+                WHERE r.id_recipe IN (:recipeIds)
+                ON CONFLICT (user_id, recipe_id) DO NOTHING
+            )
+            SELECT follower_id FROM batch ORDER BY follower_id DESC LIMIT 1
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    UUID fanOutRecipesBatch(UUID authorId, Collection<Integer> recipeIds, UUID afterId, int batchSize);
+
+    // Retour sous le seuil de diffusion : les dernières recettes de l'auteur sont recopiées chez le lot d'abonnés
+    // qui suit afterId, validé seul. Retourne le dernier follower_id du lot, null quand tous les abonnés ont été servis
+    @Transactional
+    @Query(value = """
+            WITH batch AS (
+                SELECT follower_id FROM followers
+                WHERE followed_id = :authorId AND follower_id > :afterId
+                ORDER BY follower_id LIMIT :batchSize
+            ), latest AS (
+                SELECT id_recipe, creation_date FROM recipes
+                WHERE user_id = :authorId AND creation_date IS NOT NULL
+                ORDER BY creation_date DESC LIMIT :count
+            ), inserted AS (
+                INSERT INTO timeline_entries (user_id, recipe_id, author_id, created_at)
+                SELECT b.follower_id, l.id_recipe, :authorId, l.creation_date FROM batch b CROSS JOIN latest l
+                ON CONFLICT (user_id, recipe_id) DO NOTHING
+            )
+            SELECT follower_id FROM batch ORDER BY follower_id DESC LIMIT 1
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    UUID backfillFollowersBatch(UUID authorId, UUID afterId, int batchSize, int count);
+
+    // Nouvel abonnement : les dernières recettes du compte suivi entrent dans le fil
+    @Modifying
+    @Query(value = """
+            INSERT INTO timeline_entries (user_id, recipe_id, author_id, created_at)
+            SELECT :followerId, r.id_recipe, r.user_id, r.creation_date FROM recipes r
+            WHERE r.user_id = :followedId AND r.creation_date IS NOT NULL
+            ORDER BY r.creation_date DESC LIMIT :count
+            ON CONFLICT (user_id, recipe_id) DO NOTHING
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    int backfill(UUID followerId, UUID followedId, int count);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.user.idUser = :userId AND t.authorId = :authorId")
+    int deleteByUserIdAndAuthorId(UUID userId, UUID authorId);
+}
@@ -0,0 +1,9 @@
+package org.schoolproject.backend.repositories;
+
+import org.schoolproject.backend.entities.TrendingScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrendingScoreRepository extends JpaRepository<TrendingScore, Integer> {
+}
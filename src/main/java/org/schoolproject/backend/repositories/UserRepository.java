@@ -1,18 +1,26 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.schoolproject.backend.entities.User;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 
 public interface UserRepository extends JpaRepository<User, UUID> {
+    // Appelée par JwtFilter à chaque requête authentifiée : résultat mis en cache de requêtes Hibernate
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 //    Optional<User> findByPhone(String phone);
     Optional<User> findByIdUser(UUID userId);
@@ -20,6 +28,14 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     List<User> findAll(Sort sort);
 
+    // Export : curseur côté serveur lu par paquets de 500 lignes (dans une transaction), entités sans instantané
+    @Query("SELECT u FROM User u ORDER BY u.idUser")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<User> streamAll();
+
     List<User> findAllById(Iterable<UUID> ids);
 
     Optional<User> findByResetToken(String resetToken);
@@ -29,6 +45,25 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT f.idUser FROM User u JOIN u.followers f WHERE u.idUser = :followedId")
     List<UUID> findFollowerIdsByFollowedId(UUID followedId);
 
-    @Query("SELECT u FROM User u WHERE LOWER(u.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(u.firstName) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<User> findByLastNameContainingIgnoreCaseOrFirstNameContainingIgnoreCase(String query, String query2);
+    // Chargement de l'index de recherche : [id_user, first_name, last_name, profile_pic], sans entités
+    @Query("SELECT u.idUser, u.firstName, u.lastName, u.profilePic FROM User u WHERE u.deletedAt IS NULL")
+    List<Object[]> findSearchEntries();
+
+    // Comptes marqués pour suppression (reprise des suppressions interrompues)
+    @Query("SELECT u.idUser FROM User u WHERE u.deletedAt IS NOT NULL")
+    List<UUID> findTombstonedIds();
+
+    // Table de jointure user_followers, sans clé primaire : lots repérés par ctid
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM user_followers WHERE ctid IN " +
+            "(SELECT ctid FROM user_followers WHERE followed_id = :userId OR follower_id = :userId LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_followers"))
+    int deleteFollowersJoinBatch(UUID userId, int batchSize);
+
+    // Suppression finale de la ligne, sans charger ni parcourir les collections en cascade
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM User u WHERE u.idUser = :userId")
+    int deleteByIdUser(UUID userId);
 }
@@ -0,0 +1,101 @@
+package org.schoolproject.backend.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.schoolproject.backend.entities.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
+
+    // Construit la ligne à partir des COUNT réels si elle n'existe pas encore
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_stats (user_id, follower_count, following_count, recipe_count, like_count)
+            SELECT u.id_user,
+                   (SELECT count(*) FROM followers f WHERE f.followed_id = u.id_user),
+                   (SELECT count(*) FROM followers f WHERE f.follower_id = u.id_user),
+                   (SELECT count(*) FROM recipes r WHERE r.user_id = u.id_user),
+                   (SELECT count(*) FROM likes l JOIN recipes r ON r.id_recipe = l.recipe_id WHERE r.user_id = u.id_user)
+            FROM users u WHERE u.id_user = :userId
+            ON CONFLICT (user_id) DO NOTHING
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_stats"))
+    int initialize(UUID userId);
+
+    // Les deux lignes d'un abonnement en une instruction (verrous pris dans le même ordre, pas d'interblocage)
+    @Modifying
+    @Query(value = """
+            UPDATE user_stats SET
+                follower_count = follower_count + CASE WHEN user_id = :followedId THEN :delta ELSE 0 END,
+                following_count = following_count + CASE WHEN user_id = :followerId THEN :delta ELSE 0 END
+            WHERE user_id IN (:followerId, :followedId)
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_stats"))
+    int addFollow(UUID followerId, UUID followedId, int delta);
+
+    // Lu après addFollow dans la même transaction : la ligne est verrouillée, la valeur est exacte
+    @Query("SELECT s.followerCount FROM UserStats s WHERE s.userId = :userId")
+    Optional<Long> findFollowerCount(UUID userId);
+
+    @Modifying
+    @Query("UPDATE UserStats s SET s.recipeCount = s.recipeCount + :delta WHERE s.userId = :userId")
+    int addRecipes(UUID userId, int delta);
+
+    @Modifying
+    @Query("UPDATE UserStats s SET s.likeCount = s.likeCount + :delta WHERE s.userId = :userId")
+    int addLikes(UUID userId, int delta);
+
+    // Retrait d'une recette et des likes qu'elle avait reçus (avant la suppression de ses likes)
+    @Modifying
+    @Query(value = """
+            UPDATE user_stats SET
+                recipe_count = recipe_count - 1,
+                like_count = like_count - (SELECT count(*) FROM likes WHERE recipe_id = :recipeId)
+            WHERE user_id = :userId
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_stats"))
+    int removeRecipe(UUID userId, int recipeId);
+
+    @Modifying
+    @Query("DELETE FROM UserStats s WHERE s.userId IN :userIds")
+    int deleteAllByUserIdIn(Collection<UUID> userIds);
+
+    @Query(value = "SELECT user_id FROM user_stats WHERE user_id > :after ORDER BY user_id LIMIT :batchSize", nativeQuery = true)
+    List<UUID> findIdsAfter(UUID after, int batchSize);
+
+    // Corrige les lignes qui ont dérivé des COUNT réels ; retourne les utilisateurs corrigés
+    @Transactional
+    @Query(value = """
+            WITH actual AS (
+                SELECT u.id_user AS user_id,
+                       (SELECT count(*) FROM followers f WHERE f.followed_id = u.id_user) AS follower_count,
+                       (SELECT count(*) FROM followers f WHERE f.follower_id = u.id_user) AS following_count,
+                       (SELECT count(*) FROM recipes r WHERE r.user_id = u.id_user) AS recipe_count,
+                       (SELECT count(*) FROM likes l JOIN recipes r ON r.id_recipe = l.recipe_id WHERE r.user_id = u.id_user) AS like_count
+                FROM users u WHERE u.id_user IN (:userIds)
+            )
+            UPDATE user_stats s SET
+                follower_count = a.follower_count,
+                following_count = a.following_count,
+                recipe_count = a.recipe_count,
+                like_count = a.like_count
+            FROM actual a
+            WHERE s.user_id = a.user_id
+              AND (s.follower_count, s.following_count, s.recipe_count, s.like_count)
+                  IS DISTINCT FROM (a.follower_count, a.following_count, a.recipe_count, a.like_count)
+            RETURNING s.user_id
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_stats"))
+    List<UUID> reconcile(Collection<UUID> userIds);
+}
@@ -1,14 +1,30 @@
 package org.schoolproject.backend.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.schoolproject.backend.entities.VerificationCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface VerificationCodeRepository extends JpaRepository<VerificationCode, Integer> {
     Optional<VerificationCode> findByEmail(String code);
-    void deleteByEmail(String email);
 
-    void deleteByExpiryDateBefore(LocalDateTime expiryDateBefore);
+    // Un seul DELETE au lieu d'un SELECT suivi d'un DELETE par ligne
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM VerificationCode v WHERE v.email = :email")
+    int deleteByEmail(String email);
+
+    // Purge des codes expirés par lot, chaque lot dans sa propre transaction
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM verification_codes WHERE id_verif IN " +
+            "(SELECT id_verif FROM verification_codes WHERE expiry_date < :expiryDateBefore LIMIT :batchSize)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "verification_codes"))
+    int deleteBatchByExpiryDateBefore(LocalDateTime expiryDateBefore, int batchSize);
 }
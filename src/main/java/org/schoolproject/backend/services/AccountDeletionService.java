@@ -0,0 +1,230 @@
+package org.schoolproject.backend.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.schoolproject.backend.config.CacheConfig;
+import org.schoolproject.backend.dto.AccountDeletionStatusDTO;
+import org.schoolproject.backend.dto.AccountDeletionStatusDTO.Status;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.entities.User;
+import org.schoolproject.backend.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Suppression de compte en deux temps : la demande pose une pierre tombale (deletedAt, connexion refusée)
+ * puis, après le commit, un traitement en arrière-plan supprime les données liées par lots bornés,
+ * chaque lot dans sa propre transaction, et efface les fichiers uploadés (photo de profil, images des recettes).
+ * Les suppressions interrompues (redémarrage, erreur) sont reprises périodiquement à partir des pierres tombales.
+ */
+@Service
+public class AccountDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountDeletionService.class);
+
+    private final UserRepository userRepository;
+    private final CommentRepository commentRepository;
+    private final LikeRepository likeRepository;
+    private final SavedRecipeRepository savedRecipeRepository;
+    private final NotificationRepository notificationRepository;
+    private final FollowerRepository followerRepository;
+    private final RecipeRepository recipeRepository;
+    private final FileStorageService fileStorageService;
+    private final ResourceVersionService resourceVersionService;
+    private final ProfileStatsService profileStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+
+    private final Map<UUID, AccountDeletionStatusDTO> statuses = new ConcurrentHashMap<>();
+    private final Set<UUID> running = ConcurrentHashMap.newKeySet();
+
+    @Value("${bulk-delete.batch-size:1000}")
+    private int batchSize;
+
+    public AccountDeletionService(UserRepository userRepository, CommentRepository commentRepository,
+                                  LikeRepository likeRepository, SavedRecipeRepository savedRecipeRepository,
+                                  NotificationRepository notificationRepository, FollowerRepository followerRepository,
+                                  RecipeRepository recipeRepository, FileStorageService fileStorageService,
+                                  ResourceVersionService resourceVersionService, ProfileStatsService profileStatsService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  EntityManagerFactory entityManagerFactory, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.commentRepository = commentRepository;
+        this.likeRepository = likeRepository;
+        this.savedRecipeRepository = savedRecipeRepository;
+        this.notificationRepository = notificationRepository;
+        this.followerRepository = followerRepository;
+        this.recipeRepository = recipeRepository;
+        this.fileStorageService = fileStorageService;
+        this.resourceVersionService = resourceVersionService;
+        this.profileStatsService = profileStatsService;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+    }
+
+    public record DeletionRequested(UUID userId) {
+    }
+
+    /**
+     * Marque le compte comme supprimé ; la purge démarre une fois la transaction courante validée.
+     */
+    @Transactional
+    public AccountDeletionStatusDTO requestDeletion(UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        if (user.getDeletedAt() == null) {
+            user.setDeletedAt(LocalDateTime.now());
+            userRepository.save(user);
+        }
+        AccountDeletionStatusDTO status = statuses.compute(userId, (id, current) ->
+                current == null || current.getStatus() == Status.FAILED ? newStatus(id) : current);
+        eventPublisher.publishEvent(new DeletionRequested(userId));
+        return status;
+    }
+
+    public Optional<AccountDeletionStatusDTO> getStatus(UUID userId) {
+        return Optional.ofNullable(statuses.get(userId));
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeletionRequested(DeletionRequested event) {
+        purge(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${account-deletion.resume-interval-ms:600000}",
+            initialDelayString = "${account-deletion.resume-interval-ms:600000}")
+    public void resumeInterruptedDeletions() {
+        userRepository.findTombstonedIds().forEach(this::purge);
+        LocalDateTime expiry = LocalDateTime.now().minusDays(1);
+        statuses.values().removeIf(status -> status.getFinishedAt() != null && status.getFinishedAt().isBefore(expiry));
+    }
+
+    private void purge(UUID userId) {
+        if (!running.add(userId)) {
+            return; // déjà en cours
+        }
+        AccountDeletionStatusDTO status = statuses.computeIfAbsent(userId, this::newStatus);
+        status.setStatus(Status.RUNNING);
+        status.setError(null);
+        try {
+            Optional<User> user = userRepository.findById(userId);
+            if (user.isEmpty()) {
+                status.setStatus(Status.COMPLETED);
+                status.setFinishedAt(LocalDateTime.now());
+                return;
+            }
+            String profilePic = user.get().getProfilePic();
+            List<UUID> followedIds = followerRepository.findFollowedIdsByFollowerId(userId);
+            List<UUID> followerIds = followerRepository.findFollowerIdsByFollowedId(userId);
+            List<UUID> likedOwnerIds = likeRepository.findLikedRecipeOwnerIds(userId);
+
+            runInBatches(status, "comments", () -> commentRepository.deleteLeafBatchByUserId(userId, batchSize));
+            runInBatches(status, "likes", () -> likeRepository.deleteBatchByUserIdUser(userId, batchSize));
+            runInBatches(status, "saved_recipes", () -> savedRecipeRepository.deleteBatchByUserIdUser(userId, batchSize));
+            runInBatches(status, "notifications", () -> notificationRepository.deleteBatchByUserOrSender(userId, batchSize));
+            runInBatches(status, "followers", () -> followerRepository.deleteBatchByUserId(userId, batchSize));
+            runInBatches(status, "user_followers", () -> userRepository.deleteFollowersJoinBatch(userId, batchSize));
+            purgeRecipes(status, userId);
+
+            status.setStep("user");
+            status.setDeletedRows(status.getDeletedRows() + userRepository.deleteByIdUser(userId));
+            deleteUpload(status, profilePic);
+
+            resourceVersionService.touch(ResourceVersionService.userKey(userId));
+            followedIds.forEach(id -> resourceVersionService.touch(ResourceVersionService.followersKey(id)));
+            followerIds.forEach(id -> resourceVersionService.touch(ResourceVersionService.followingKey(id)));
+
+            // Compteurs de profil des utilisateurs liés : recalculés à la prochaine lecture
+            Set<UUID> affected = new HashSet<>(followedIds);
+            affected.addAll(followerIds);
+            affected.addAll(likedOwnerIds);
+            affected.add(userId);
+            profileStatsService.invalidate(affected);
+
+            status.setStatus(Status.COMPLETED);
+            status.setFinishedAt(LocalDateTime.now());
+            logger.info("Compte {} supprimé : {} lignes, {} fichiers", userId, status.getDeletedRows(), status.getDeletedFiles());
+        } catch (RuntimeException e) {
+            status.setStatus(Status.FAILED);
+            status.setError(e.getMessage());
+            status.setFinishedAt(LocalDateTime.now());
+            logger.error("Échec de la suppression du compte {} à l'étape {} (reprise planifiée)", userId, status.getStep(), e);
+        } finally {
+            running.remove(userId);
+        }
+    }
+
+    // Répète le lot jusqu'à ce qu'il ne supprime plus rien ; chaque appel est validé séparément
+    private void runInBatches(AccountDeletionStatusDTO status, String step, IntSupplier batch) {
+        status.setStep(step);
+        int deleted;
+        do {
+            deleted = batch.getAsInt();
+            status.setDeletedRows(status.getDeletedRows() + deleted);
+        } while (deleted > 0);
+    }
+
+    private void purgeRecipes(AccountDeletionStatusDTO status, UUID userId) {
+        status.setStep("recipes");
+        List<Object[]> removed;
+        do {
+            removed = recipeRepository.deleteBatchByUserIdReturningImages(userId, batchSize);
+            status.setDeletedRows(status.getDeletedRows() + removed.size());
+            for (Object[] row : removed) {
+                int recipeId = ((Number) row[0]).intValue();
+                resourceVersionService.forgetRecipe(recipeId);
+                resourceVersionService.touch(ResourceVersionService.recipeKey(recipeId));
+                deleteUpload(status, (String) row[1]);
+            }
+        } while (!removed.isEmpty());
+
+        // Les instructions natives ne passent pas par Hibernate : les caches de recettes sont vidés à la main
+        entityManagerFactory.getCache().evict(Recipe.class);
+        Cache recipes = cacheManager.getCache(CacheConfig.RECIPES);
+        if (recipes != null) {
+            recipes.clear();
+        }
+    }
+
+    private void deleteUpload(AccountDeletionStatusDTO status, String fileName) {
+        if (fileName == null) {
+            return;
+        }
+        try {
+            fileStorageService.deleteFile(fileName);
+            status.setDeletedFiles(status.getDeletedFiles() + 1);
+        } catch (RuntimeException e) {
+            logger.warn("Impossible de supprimer le fichier {} : {}", fileName, e.getMessage());
+        }
+    }
+
+    private AccountDeletionStatusDTO newStatus(UUID userId) {
+        return AccountDeletionStatusDTO.builder()
+                .userId(userId)
+                .status(Status.PENDING)
+                .requestedAt(LocalDateTime.now())
+                .build();
+    }
+}
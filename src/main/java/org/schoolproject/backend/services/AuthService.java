@@ -3,7 +3,9 @@ package org.schoolproject.backend.services;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.schoolproject.backend.config.OffloadingPasswordEncoder;
 import org.schoolproject.backend.controllers.AuthController;
+import org.schoolproject.backend.dto.CustomUserDetails;
 import org.schoolproject.backend.dto.UserDTO;
 import org.schoolproject.backend.entities.User;
 import org.schoolproject.backend.mappers.UserMapper;
@@ -13,13 +15,14 @@ import org.schoolproject.backend.repositories.VerificationCodeRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -28,6 +31,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -35,13 +39,18 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
-    private final PasswordEncoder passwordEncoder;
+    private final OffloadingPasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
     private final FileStorageService fileStorageService;
     private final VerificationCodeService verificationCodeService;
     private final VerificationCodeRepository verificationCodeRepository;
     private final EmailService emailService;
+    private final ResourceVersionService resourceVersionService;
+    private final UserSearchIndex userSearchIndex;
+    private final RefreshTokenService refreshTokenService;
+    private final PlatformTransactionManager transactionManager;
+    // Suites des hachages (base de données, fichiers), résolu par nom parmi les exécuteurs
+    private final AsyncTaskExecutor authIoExecutor;
 
     @Value("${frontend.reset.link}")
     private String frontendResetLink;
@@ -64,10 +73,11 @@ public class AuthService {
 
 
     /**
-     * Inscription d'un utilisateur
+     * Inscription d'un utilisateur.
+     * Le code et l'e-mail sont vérifiés avant le hachage ; l'enregistrement se fait ensuite, dans sa propre transaction,
+     * sur le pool d'entrées-sorties (authIoExecutor) : le pool de hachage ne fait que du BCrypt.
      */
-    @Transactional
-    public Map<String, Object> completeRegistration(UserDTO userDTO,String code, MultipartFile profileImage, HttpServletResponse response) {
+    public CompletableFuture<Map<String, Object>> completeRegistration(UserDTO userDTO, String code, MultipartFile profileImage, HttpServletResponse response) {
         // Vérifier le code
         verificationCodeService.verifyCode(userDTO.getEmail(), code);
 
@@ -76,6 +86,12 @@ public class AuthService {
             throw new IllegalArgumentException("Email address already in use");
         }
 
+        return passwordEncoder.encodeAsync(userDTO.getPassword())
+                .thenApplyAsync(encodedPassword -> new TransactionTemplate(transactionManager)
+                        .execute(status -> register(userDTO, encodedPassword, profileImage, response)), authIoExecutor);
+    }
+
+    private Map<String, Object> register(UserDTO userDTO, String encodedPassword, MultipartFile profileImage, HttpServletResponse response) {
         String imageUrl = null;
         try {
             // Stocker l'image si elle est fournie
@@ -85,11 +101,12 @@ public class AuthService {
 
             // Convertir UserDTO en entité User
             User user = userMapper.toEntity(userDTO);
-            user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+            user.setPassword(encodedPassword);
             user.setProfilePic(imageUrl);
 
             // Sauvegarder l'utilisateur dans la base de données
             userRepository.save(user);
+            userSearchIndex.index(user);
 
             // Supprimer le code de vérification
             verificationCodeRepository.deleteByEmail(userDTO.getEmail());
@@ -118,31 +135,53 @@ public class AuthService {
 
 
     /**
-     * Connexion d'un utilisateur
+     * Connexion d'un utilisateur.
+     * Un e-mail inconnu est refusé sans hachage, avec la même erreur et un délai comparable à un mauvais mot de passe.
+     * Un hachage d'ancien format ou de coût inférieur est ré-encodé une fois le mot de passe vérifié.
+     * Seuls la vérification et le ré-encodage tournent sur le pool de hachage ; les écritures (ré-encodage,
+     * refresh token) passent sur authIoExecutor.
      */
-    public Map<String, Object> login(String email, String password, HttpServletResponse response) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return generateAuthResponse(user, response);
+    public CompletableFuture<Map<String, Object>> login(String email, String password, HttpServletResponse response) {
+        Optional<User> found = userRepository.findByEmail(email);
+        if (found.isEmpty()) {
+            return passwordEncoder.rejectUnknownUser().thenApply(ignored -> {
+                throw new BadCredentialsException("Bad credentials");
+            });
+        }
+        User user = found.get();
+        return passwordEncoder.matchesAsync(password, user.getPassword())
+                .thenCompose(matches -> {
+                    if (!matches) {
+                        throw new BadCredentialsException("Bad credentials");
+                    }
+                    new AccountStatusUserDetailsChecker().check(new CustomUserDetails(user));
+                    // null : hachage à jour, rien à réécrire
+                    return passwordEncoder.upgradeEncoding(user.getPassword())
+                            ? passwordEncoder.encodeAsync(password)
+                            : CompletableFuture.<String>completedFuture(null);
+                })
+                .thenApplyAsync(upgraded -> {
+                    if (upgraded != null) {
+                        user.setPassword(upgraded);
+                        userRepository.save(user);
+                    }
+                    return generateAuthResponse(user, response);
+                }, authIoExecutor);
     }
 
     /**
-     * Rafraîchir l'Access Token en utilisant le Refresh Token
+     * Rafraîchir l'Access Token en utilisant le Refresh Token.
+     * Le refresh token est consommé et remplacé (rotation) : le nouveau est posé dans le cookie.
      */
-    public String refreshAccessToken(String refreshToken) {
-        if (!jwtUtil.validateToken(refreshToken)) {
-            throw new RuntimeException("Invalid or expired token");
-        }
-
-        UUID userId = jwtUtil.extractUserId(refreshToken);
-        String email = jwtUtil.extractEmail(refreshToken);
-        return jwtUtil.generateAccessToken(userId, email);
+    public String refreshAccessToken(String refreshToken, HttpServletResponse response) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        addRefreshTokenCookie(response, rotation.refreshToken());
+        return jwtUtil.generateAccessToken(rotation.userId(), rotation.email());
     }
 
     public boolean isRefreshTokenValid(String refreshToken) {
         try {
-            return jwtUtil.validateToken(refreshToken);
+            return refreshTokenService.isValid(refreshToken);
         } catch (Exception e) {
             return false; // Si une exception est levée (token invalide ou expiré), renvoyer false
         }
@@ -155,7 +194,7 @@ public class AuthService {
         logger.info("Génération de la réponse d'authentification pour: {}", user.getEmail());
 
         String accessToken = jwtUtil.generateAccessToken(user.getIdUser(), user.getEmail());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getIdUser(), user.getEmail());
+        String refreshToken = refreshTokenService.issue(user);
         logger.debug("Tokens générés - accessToken: {}, refreshToken: {}", accessToken, refreshToken);
 
         // Supprimer l'ancien cookie refreshToken s'il existe
@@ -168,15 +207,7 @@ public class AuthService {
         logger.debug("Ancien cookie refreshToken supprimé");
 
         // Ajouter le nouveau cookie refreshToken
-        Cookie refreshTokenCookie = new Cookie("refreshToken", refreshToken);
-        refreshTokenCookie.setHttpOnly(true);
-        refreshTokenCookie.setSecure(false); // Désactivé pour tests locaux
-        refreshTokenCookie.setPath("/");
-        refreshTokenCookie.setAttribute("SameSite", "Lax"); // ou "None" avec Secure=true en prod
-        refreshTokenCookie.setMaxAge(7 * 24 * 60 * 60); // 7 jours
-        response.addCookie(refreshTokenCookie);
-        logger.debug("Nouveau cookie refreshToken ajouté: value={}, path={}, maxAge={}",
-                refreshTokenCookie.getValue(), refreshTokenCookie.getPath(), refreshTokenCookie.getMaxAge());
+        addRefreshTokenCookie(response, refreshToken);
 
         Map<String, Object> responseBody = new HashMap<>();
         responseBody.put("accessToken", accessToken);
@@ -186,8 +217,24 @@ public class AuthService {
         return responseBody;
     }
 
-  
-    public Map<String, String> logout(HttpServletResponse response) {
+    private void addRefreshTokenCookie(HttpServletResponse response, String refreshToken) {
+        Cookie refreshTokenCookie = new Cookie("refreshToken", refreshToken);
+        refreshTokenCookie.setHttpOnly(true);
+        refreshTokenCookie.setSecure(false); // Désactivé pour tests locaux
+        refreshTokenCookie.setPath("/");
+        refreshTokenCookie.setAttribute("SameSite", "Lax"); // ou "None" avec Secure=true en prod
+        refreshTokenCookie.setMaxAge((int) (jwtUtil.getRefreshTokenExpiration() / 1000));
+        response.addCookie(refreshTokenCookie);
+        logger.debug("Nouveau cookie refreshToken ajouté: path={}, maxAge={}",
+                refreshTokenCookie.getPath(), refreshTokenCookie.getMaxAge());
+    }
+
+    /**
+     * Déconnexion : révoque la famille du refresh token (toutes instances) et supprime le cookie
+     */
+    public Map<String, String> logout(String refreshToken, HttpServletResponse response) {
+        refreshTokenService.revoke(refreshToken);
+
         // Supprimer le cookie du Refresh Token
         Cookie refreshTokenCookie = new Cookie("refreshToken", "");
         refreshTokenCookie.setHttpOnly(true);
@@ -220,6 +267,7 @@ public class AuthService {
         user.setResetToken(resetToken);
         user.setResetTokenExpiredAt(expiryDate);
         userRepository.save(user);
+        resourceVersionService.touch(ResourceVersionService.userKey(user.getIdUser()));
 
         //lien de reinitialisation
         String resetLink = frontendResetLink+resetToken;
@@ -245,9 +293,7 @@ public class AuthService {
     /**
      * Vérifie la validité du token de réinitialisation
      */
-    @Transactional
-    public Map<String, Object> resetPassword(String token, String newPassword) {
-        Map<String, Object> response = new HashMap<>();
+    public CompletableFuture<Map<String, Object>> resetPassword(String token, String newPassword) {
         Optional<User> userOptional = userRepository.findByResetToken(token);
         if (userOptional.isEmpty()){
             throw new IllegalArgumentException("Token invalid.");
@@ -260,20 +306,25 @@ public class AuthService {
             user.setResetToken(null);
             user.setResetTokenExpiredAt(null);
             userRepository.save(user);
+            resourceVersionService.touch(ResourceVersionService.userKey(user.getIdUser()));
             throw new IllegalArgumentException("Expired reset password link");
         }
 
-        //mette a jour sinon
-        user.setPassword(passwordEncoder.encode(newPassword));
-        user.setResetToken(null);
-        user.setResetTokenExpiredAt(null);
-        userRepository.save(user);
-
-        response.put("success", true);
-        response.put("message", "Reset password successful");
-
-        return response;
+        //mette a jour sinon (hachage sur le pool dédié, écritures sur authIoExecutor)
+        return passwordEncoder.encodeAsync(newPassword).thenApplyAsync(encoded -> {
+            user.setPassword(encoded);
+            user.setResetToken(null);
+            user.setResetTokenExpiredAt(null);
+            userRepository.save(user);
+            resourceVersionService.touch(ResourceVersionService.userKey(user.getIdUser()));
+            // Les sessions ouvertes avec l'ancien mot de passe ne peuvent plus se rafraîchir
+            refreshTokenService.revokeAllForUser(user.getIdUser());
 
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Reset password successful");
+            return response;
+        }, authIoExecutor);
     }
 
 
@@ -1,5 +1,7 @@
 package org.schoolproject.backend.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
@@ -12,16 +14,20 @@ public class EmailService {
 
 
     private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
 
     @Value("${spring.mail.username}")
     private String sender;
 
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
+        this.meterRegistry = meterRegistry;
     }
 
 
     public void sendEmail(String to, String subject, String body) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(to);
@@ -32,7 +38,11 @@ public class EmailService {
             message.setFrom(sender);
             mailSender.send(message);
         }catch (Exception e) {
+            outcome = "error";
             throw new RuntimeException("An error occurred while sending email "+ e.getMessage());
+        } finally {
+            // Latence SMTP, succès ou échec
+            sample.stop(meterRegistry.timer("email.send", "outcome", outcome));
         }
     }
 }
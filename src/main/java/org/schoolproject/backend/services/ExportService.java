@@ -0,0 +1,95 @@
+package org.schoolproject.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.entities.User;
+import org.schoolproject.backend.mappers.ExportMapper;
+import org.schoolproject.backend.repositories.RecipeRepository;
+import org.schoolproject.backend.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exports complets en NDJSON (un objet JSON par ligne), écrits au fil de la lecture :
+ * la mémoire utilisée ne dépend pas de la taille de la table.
+ * Chaque export tourne dans une transaction en lecture seule ouverte sur le thread d'écriture de la réponse ;
+ * le contexte de persistance est vidé toutes les flush-every lignes pour que les entités déjà écrites soient libérées.
+ * Les lignes passent par des projections dédiées (ExportMapper) : pas d'e-mail, d'adresse ni de jeton de réinitialisation.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final RecipeRepository recipeRepository;
+    private final UserRepository userRepository;
+    private final ExportMapper exportMapper;
+    private final ObjectWriter writer;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${export.flush-every:500}")
+    private int flushEvery;
+
+    public ExportService(RecipeRepository recipeRepository, UserRepository userRepository, ExportMapper exportMapper,
+                         ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.userRepository = userRepository;
+        this.exportMapper = exportMapper;
+        this.writer = objectMapper.writer();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public StreamingResponseBody exportRecipes() {
+        return out -> export("recipes", recipeRepository::streamAllWithUser, (Recipe recipe) -> exportMapper.toExport(recipe), out);
+    }
+
+    public StreamingResponseBody exportUsers() {
+        return out -> export("users", userRepository::streamAll, (User user) -> exportMapper.toExport(user), out);
+    }
+
+    private <E> void export(String name, Supplier<Stream<E>> rows, Function<E, ?> mapper, OutputStream out) throws IOException {
+        try {
+            Integer count = readOnlyTransaction.execute(status -> {
+                int written = 0;
+                try (Stream<E> stream = rows.get()) {
+                    for (E row : (Iterable<E>) stream::iterator) {
+                        out.write(writer.writeValueAsBytes(mapper.apply(row)));
+                        out.write('\n');
+                        if (++written % flushEvery == 0) {
+                            entityManager.clear();
+                            out.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return written;
+            });
+            out.flush();
+            logger.info("Export {} terminé : {} lignes", name, count);
+        } catch (UncheckedIOException e) {
+            // Client déconnecté en cours d'export : la transaction est annulée, le curseur fermé
+            throw e.getCause();
+        }
+    }
+}
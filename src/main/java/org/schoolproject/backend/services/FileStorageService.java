@@ -4,11 +4,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
+    // Taille maximale d'un fichier stocké (octets)
+    public static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+
     // Définition du chemin où les fichiers seront stockés (dans Apache/XAMPP)
     private final Path storagePath = Paths.get("C:/xampp/htdocs/uploads");
 
@@ -37,44 +41,79 @@ public class FileStorageService {
                 throw new IllegalArgumentException("Le fichier est vide.");
             }
 
-            //  Vérifie la taille du fichier (max 5MB)
-            if (file.getSize() > 10 * 1024 * 1024) {
-                throw new IllegalArgumentException("La taille du fichier dépasse la limite de 5MB. ");
-            }
-
-            //  Vérifie l'extension du fichier
-            String fileExtension = getFileExtension(file.getOriginalFilename());
-            if (!isAllowedExtension(fileExtension)) {
-                throw new IllegalArgumentException("Type de fichier non autorisé. Extensions autorisées : jpg, png, jpeg.");
-            }
+            String fileExtension = checkFile(file.getOriginalFilename(), file.getSize());
 
             // Supprime l’ancien fichier s'il existe
             if (oldFileName != null) {
                 deleteFile(oldFileName);
             }
 
-            //  Génération d'un nom unique avec préfixe
-            String fileName = prefix + "_" + UUID.randomUUID() + fileExtension;
-            Path targetLocation = storagePath.resolve(fileName);
-
-            // Copie du fichier dans le dossier de stockage
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            return write(file.getInputStream(), prefix, fileExtension);
+        } catch (IOException e) {
+            throw new RuntimeException("Échec du stockage du fichier.", e);
+        }
+    }
 
-            //  Retourne l’URL relative pour stockage en base de données, ficier uploader dans le srver xampp /upload
-            return "/uploads/" + fileName;
+    /**
+     *  Stocke un contenu lu depuis un flux (ex: entrée d'une archive d'import), avec les mêmes contrôles.
+     *
+     * @param originalFilename Nom d'origine, pour l'extension
+     * @param size             Taille annoncée du contenu
+     * @param content          Le contenu, fermé après la copie
+     * @param prefix           Le préfixe pour éviter les conflits (ex: user_ ou recipe_)
+     * @return L’URL publique du fichier stocké
+     */
+    public String storeFile(String originalFilename, long size, InputStream content, String prefix) {
+        try (InputStream input = content) {
+            return write(input, prefix, checkFile(originalFilename, size));
         } catch (IOException e) {
             throw new RuntimeException("Échec du stockage du fichier.", e);
         }
     }
 
+    /**
+     *  Vérifie la taille et l'extension ; retourne l'extension.
+     */
+    private String checkFile(String originalFilename, long size) {
+        //  Vérifie la taille du fichier (max 5MB)
+        if (size > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("La taille du fichier dépasse la limite de 5MB. ");
+        }
+
+        //  Vérifie l'extension du fichier
+        String fileExtension = getFileExtension(originalFilename == null ? "" : originalFilename);
+        if (!isAllowedExtension(fileExtension)) {
+            throw new IllegalArgumentException("Type de fichier non autorisé. Extensions autorisées : jpg, png, jpeg.");
+        }
+        return fileExtension;
+    }
+
+    private String write(InputStream input, String prefix, String fileExtension) throws IOException {
+        //  Génération d'un nom unique avec préfixe
+        String fileName = prefix + "_" + UUID.randomUUID() + fileExtension;
+        Path targetLocation = storagePath.resolve(fileName);
+
+        // Copie du fichier dans le dossier de stockage ; une copie interrompue ne laisse pas de fichier partiel
+        try {
+            Files.copy(input, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(targetLocation);
+            throw e;
+        }
+
+        //  Retourne l’URL relative pour stockage en base de données, ficier uploader dans le srver xampp /upload
+        return "/uploads/" + fileName;
+    }
+
     /**
      *  Supprime un fichier du stockage.
-     * @param fileName Le nom du fichier à supprimer.
+     * @param fileName Le nom du fichier à supprimer, ou l'URL retournée par storeFile (/uploads/...).
      */
     public void deleteFile(String fileName) {
         try {
             if (fileName != null && !fileName.isEmpty()) {
-                Path filePath = storagePath.resolve(fileName).normalize();
+                // Seul le nom est conservé : l'URL stockée en base n'est pas un chemin relatif au dossier de stockage
+                Path filePath = storagePath.resolve(Paths.get(fileName).getFileName().toString()).normalize();
                 Files.deleteIfExists(filePath);
             }
         } catch (IOException e) {
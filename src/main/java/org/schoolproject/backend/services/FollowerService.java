@@ -1,20 +1,29 @@
 package org.schoolproject.backend.services;
 
+import org.schoolproject.backend.dto.CursorPageDTO;
+import org.schoolproject.backend.dto.RelationshipStatusDTO;
+import org.schoolproject.backend.dto.UserCardDTO;
 import org.schoolproject.backend.entities.Follower;
 import org.schoolproject.backend.entities.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface FollowerService {
 void followUser(UUID followerId, UUID followedId);
 void unfollowUser(UUID followerId, UUID followedId);
 boolean isFollowing(UUID followerId, UUID followedId);
+    Map<UUID, RelationshipStatusDTO> getRelationships(UUID userId, Collection<UUID> targetIds);
 List<Follower> getFollowers(UUID userId);
 List<Follower> getFollowing (UUID userId);
+    CursorPageDTO<UserCardDTO> getFollowersPage(UUID userId, String cursor, int size);
+    CursorPageDTO<UserCardDTO> getFollowingPage(UUID userId, String cursor, int size);
 int getFollowerCount(UUID userId);
 int getFollowingCount(UUID userId);
     List<User> getSuggestedUsers(UUID userId); // Nouvelles méthodes
     List<User> searchUsers(UUID excludeUserId, String query);
+    CursorPageDTO<UserCardDTO> searchUsersPage(UUID excludeUserId, String query, String cursor, int size);
     List<User> getRandomSuggestedUsers(UUID userId, int limit);
 }
@@ -0,0 +1,340 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.dto.PantryMatchDTO;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.entities.RecipeIngredient;
+import org.schoolproject.backend.mappers.RecipeMapper;
+import org.schoolproject.backend.repositories.RecipeIngredientRepository;
+import org.schoolproject.backend.repositories.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Index des ingrédients pour la recherche « avec ce que j'ai » :
+ * - recipe_ingredients : ingrédients normalisés de chaque recette, réécrits à la création / modification ;
+ * - en mémoire, une liste de publication par ingrédient (BitSet des identifiants de recette, denses car auto-incrémentés).
+ * Un ingrédient est indexé sous son libellé complet (« huile olive ») et sous son premier mot (« huile »),
+ * si bien que « poivre » dans le garde-manger couvre « poivre noir ».
+ * Les recettes antérieures à l'index sont rattrapées en arrière-plan au démarrage.
+ */
+@Service
+public class IngredientIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngredientIndex.class);
+
+    public static final int MAX_RESULTS = 100;
+    public static final int MAX_PANTRY_SIZE = 200;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[\\n\\r,;•·]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern PARENTHESES = Pattern.compile("\\([^)]*\\)");
+    private static final Pattern NON_LETTERS = Pattern.compile("[^a-z0-9']+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s']+");
+    private static final Pattern QUANTITY = Pattern.compile("\\d.*");
+
+    // Unités, mesures et mots de liaison retirés du libellé (Set.of refuse les doublons : « l » n'y figure qu'une fois)
+    private static final Set<String> NOISE = Set.of(
+            "g", "gr", "kg", "mg", "ml", "cl", "dl", "l", "litre", "gramme", "kilo",
+            "c", "cuillere", "cuilleree", "cs", "cc", "cas", "cac", "soupe", "cafe", "tasse", "pincee", "verre",
+            "tranche", "gousse", "sachet", "boite", "pot", "botte", "brin", "cup", "tbsp", "tsp", "oz", "lb",
+            "de", "d", "du", "des", "la", "le", "les", "a", "au", "aux", "un", "une", "en", "of", "the",
+            "peu", "quelque", "environ");
+
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeRepository recipeRepository;
+    private final RecipeMapper recipeMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private final Map<Integer, String[]> recipeIngredients = new HashMap<>();
+
+    @Value("${ingredient-index.backfill-batch-size:500}")
+    private int backfillBatchSize;
+
+    public IngredientIndex(RecipeIngredientRepository recipeIngredientRepository, RecipeRepository recipeRepository,
+                           RecipeMapper recipeMapper, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager) {
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.recipeRepository = recipeRepository;
+        this.recipeMapper = recipeMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Découpe le texte libre (une ligne, virgule ou point-virgule par ingrédient) en libellés normalisés, sans doublons.
+     */
+    public static List<String> parse(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String part : SEPARATORS.split(text)) {
+            String name = normalize(part);
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    // "2 c. à soupe d'Huile d'olive (vierge)" -> "huile olive" ; null s'il ne reste rien
+    public static String normalize(String ingredient) {
+        if (ingredient == null) {
+            return null;
+        }
+        String text = ingredient.toLowerCase().replace("œ", "oe").replace("æ", "ae");
+        text = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        text = NON_LETTERS.matcher(PARENTHESES.matcher(text).replaceAll(" ")).replaceAll(" ");
+        List<String> words = new ArrayList<>();
+        for (String word : WORD_SEPARATORS.split(text.trim())) {
+            String singular = word.length() > 3 && (word.endsWith("s") || word.endsWith("x"))
+                    ? word.substring(0, word.length() - 1)
+                    : word;
+            if (!singular.isEmpty() && !NOISE.contains(singular) && !QUANTITY.matcher(singular).matches()) {
+                words.add(singular);
+            }
+        }
+        if (words.isEmpty()) {
+            return null;
+        }
+        String name = String.join(" ", words);
+        return name.length() > 100 ? name.substring(0, 100) : name;
+    }
+
+    /**
+     * Réécrit les ingrédients de la recette dans la transaction courante ; l'index mémoire suit après le commit.
+     */
+    public void index(Recipe recipe) {
+        int recipeId = recipe.getIdRecipe();
+        List<String> names = parse(recipe.getIngredients());
+        recipeIngredientRepository.deleteByRecipeId(recipeId);
+        recipeIngredientRepository.saveAll(names.stream()
+                .map(name -> RecipeIngredient.builder().recipe(recipe).name(name).build())
+                .toList());
+        afterCommit(() -> put(recipeId, names));
+    }
+
+    /**
+     * Indexe des recettes qui n'ont encore aucun ingrédient (import, rattrapage), en un seul batch JDBC
+     * dans la transaction courante ; l'index mémoire suit après le commit.
+     */
+    public void indexAll(Map<Integer, String> ingredientsByRecipe) {
+        Map<Integer, List<String>> parsed = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>();
+        ingredientsByRecipe.forEach((recipeId, text) -> {
+            List<String> names = parse(text);
+            parsed.put(recipeId, names);
+            names.forEach(name -> rows.add(new Object[]{recipeId, name}));
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO recipe_ingredients (recipe_id, name) VALUES (?, ?)", rows);
+        }
+        afterCommit(() -> parsed.forEach(this::put));
+    }
+
+    // Les lignes partent avec la recette (ON DELETE CASCADE) ; seul l'index mémoire est à mettre à jour
+    public void remove(int recipeId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(recipeId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private record Candidate(int recipeId, int matched, int total, List<String> missing) {
+        double coverage() {
+            return (double) matched / total;
+        }
+    }
+
+    /**
+     * Recettes classées par part d'ingrédients couverts par le garde-manger, puis par nombre d'ingrédients manquants.
+     */
+    public List<PantryMatchDTO> match(Collection<String> pantry, int limit) {
+        if (pantry.size() > MAX_PANTRY_SIZE) {
+            throw new IllegalArgumentException("Too many ingredients (max " + MAX_PANTRY_SIZE + ")");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_RESULTS));
+        Set<String> available = pantry.stream()
+                .map(IngredientIndex::normalize)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (available.isEmpty()) {
+            return List.of();
+        }
+
+        // Tas-min borné : la racine est la moins bonne des recettes retenues
+        Comparator<Candidate> ranking = Comparator.comparingDouble(Candidate::coverage)
+                .thenComparing(candidate -> -candidate.missing().size())
+                .thenComparing(Candidate::recipeId, Comparator.reverseOrder());
+        PriorityQueue<Candidate> best = new PriorityQueue<>(size + 1, ranking);
+
+        lock.readLock().lock();
+        try {
+            // Candidats : union des listes de publication du garde-manger
+            BitSet candidates = new BitSet();
+            for (String name : available) {
+                BitSet recipes = postings.get(name);
+                if (recipes != null) {
+                    candidates.or(recipes);
+                }
+            }
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                String[] names = recipeIngredients.get(id);
+                List<String> missing = new ArrayList<>();
+                for (String name : names) {
+                    if (!available.contains(name) && !available.contains(head(name))) {
+                        missing.add(name);
+                    }
+                }
+                best.add(new Candidate(id, names.length - missing.size(), names.length, missing));
+                if (best.size() > size) {
+                    best.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(ranking.reversed());
+        Map<Integer, Recipe> recipes = recipeRepository.findAllWithUserByIdIn(
+                        ranked.stream().map(Candidate::recipeId).toList()).stream()
+                .collect(Collectors.toMap(Recipe::getIdRecipe, Function.identity()));
+        // Une recette absente a été supprimée hors de RecipeService (suppression de compte) : écartée
+        return ranked.stream()
+                .filter(candidate -> recipes.containsKey(candidate.recipeId()))
+                .map(candidate -> PantryMatchDTO.builder()
+                        .recipe(recipeMapper.toDto(recipes.get(candidate.recipeId())))
+                        .matched(candidate.matched())
+                        .total(candidate.total())
+                        .coverage(candidate.coverage())
+                        .missing(candidate.missing())
+                        .build())
+                .toList();
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAndBackfill() {
+        long start = System.currentTimeMillis();
+        Map<Integer, List<String>> stored = new HashMap<>();
+        for (Object[] row : recipeIngredientRepository.findAllPairs()) {
+            stored.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        stored.forEach(this::put);
+
+        int backfilled = 0;
+        int afterId = 0;
+        List<Object[]> batch;
+        do {
+            int from = afterId;
+            batch = transactionTemplate.execute(status -> backfillBatch(from));
+            backfilled += batch.size();
+            if (!batch.isEmpty()) {
+                afterId = (Integer) batch.get(batch.size() - 1)[0];
+            }
+        } while (batch.size() == backfillBatchSize);
+        logger.info("Index des ingrédients : {} recettes chargées, {} rattrapées en {} ms",
+                stored.size(), backfilled, System.currentTimeMillis() - start);
+    }
+
+    private List<Object[]> backfillBatch(int afterId) {
+        List<Object[]> rows = recipeRepository.findUnindexedIngredients(afterId, Limit.of(backfillBatchSize));
+        Map<Integer, String> ingredients = new HashMap<>();
+        rows.forEach(row -> ingredients.put((Integer) row[0], (String) row[1]));
+        indexAll(ingredients);
+        return rows;
+    }
+
+    private void put(int recipeId, List<String> names) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(recipeId);
+            if (names.isEmpty()) {
+                return;
+            }
+            recipeIngredients.put(recipeId, names.toArray(String[]::new));
+            for (String name : names) {
+                postings.computeIfAbsent(name, k -> new BitSet()).set(recipeId);
+                postings.computeIfAbsent(head(name), k -> new BitSet()).set(recipeId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(int recipeId) {
+        String[] names = recipeIngredients.remove(recipeId);
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            clear(name, recipeId);
+            clear(head(name), recipeId);
+        }
+    }
+
+    private void clear(String key, int recipeId) {
+        BitSet recipes = postings.get(key);
+        if (recipes != null) {
+            recipes.clear(recipeId);
+            if (recipes.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static String head(String name) {
+        int space = name.indexOf(' ');
+        return space < 0 ? name : name.substring(0, space);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
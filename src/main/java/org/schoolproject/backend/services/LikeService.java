@@ -2,13 +2,17 @@ package org.schoolproject.backend.services;
 
 import org.schoolproject.backend.entities.Like;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface LikeService {
-    Like toggleLike(UUID userId, int recipeId);
+    // true si la recette est désormais likée, false si le like a été retiré
+    boolean toggleLike(UUID userId, int recipeId);
     void deleteLike(UUID userId, int recipeId);
     boolean isLikedByUser(UUID userId, int recipeId);
+    Map<Integer, Boolean> getLikeStatuses(UUID userId, Collection<Integer> recipeIds);
     List<Like> getLikesByUser(UUID userId);
     List<Like> getLikesByRecipe(int recipeId);
 
@@ -0,0 +1,208 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.entities.Notification;
+import org.schoolproject.backend.entities.User;
+import org.schoolproject.backend.mappers.NotificationMapper;
+import org.schoolproject.backend.repositories.NotificationActorRepository;
+import org.schoolproject.backend.repositories.NotificationRepository;
+import org.schoolproject.backend.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Regroupement des notifications d'abonnement, de commentaire et de réponse.
+ * Les événements validés sont accumulés en mémoire par (destinataire, type, groupe) pendant une fenêtre courte :
+ * la recette pour un commentaire, le commentaire parent pour une réponse. Chaque groupe est ensuite écrit en une fois :
+ * la notification non lue du même groupe est complétée (« Alice and 37 others commented… », en personnes distinctes
+ * enregistrées dans notification_actors) ou créée, et un seul message WebSocket part par fenêtre.
+ * Un groupe encore en mémoire lors d'un arrêt brutal est perdu ; à l'arrêt normal, tout est écrit.
+ */
+@Service
+public class NotificationAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationAggregator.class);
+    private static final int MAX_MESSAGE_LENGTH = 200;
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationActorRepository notificationActorRepository;
+    private final UserRepository userRepository;
+    private final NotificationMapper notificationMapper;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<GroupKey, Group> buffer = new ConcurrentHashMap<>();
+
+    @Value("${notifications.aggregation.window-ms:30000}")
+    private long windowMs;
+
+    public NotificationAggregator(NotificationRepository notificationRepository,
+                                  NotificationActorRepository notificationActorRepository, UserRepository userRepository,
+                                  NotificationMapper notificationMapper, OutboxService outboxService,
+                                  ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.notificationActorRepository = notificationActorRepository;
+        this.userRepository = userRepository;
+        this.notificationMapper = notificationMapper;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public enum Kind {
+        FOLLOW("user", "New follower", " follow you.", " followed you."),
+        COMMENT("comment", "New comment on your recipe", " commented: ", " commented on your recipe."),
+        REPLY("comment", "New reply to your comment", " replied: ", " replied to your comment.");
+
+        private final String entityType;
+        private final String title;
+        private final String single;   // suivi du contenu pour un événement isolé
+        private final String grouped;
+
+        Kind(String entityType, String title, String single, String grouped) {
+            this.entityType = entityType;
+            this.title = title;
+            this.single = single;
+            this.grouped = grouped;
+        }
+    }
+
+    public record NotificationEvent(UUID recipientId, Kind kind, Integer groupId, Integer relatedEntityId,
+                                    UUID actorId, String content) {
+    }
+
+    private record GroupKey(UUID recipientId, Kind kind, Integer groupId) {
+
+        String value() {
+            return groupId == null ? kind.name().toLowerCase() : kind.name().toLowerCase() + ":" + groupId;
+        }
+    }
+
+    // Modifié uniquement sous le verrou de ConcurrentHashMap.compute ; lu après retrait de la map
+    private static final class Group {
+        private final long openedAt = System.currentTimeMillis();
+        private final Set<UUID> actorIds = new LinkedHashSet<>();
+        private int count;
+        private UUID lastActorId;
+        private String lastContent;
+        private Integer relatedEntityId;
+    }
+
+    /**
+     * Enregistre un événement ; il n'entre dans le tampon qu'une fois la transaction courante validée.
+     * groupId identifie ce qui est regroupé (recette commentée, commentaire parent), relatedEntityId ce vers quoi
+     * la notification renvoie.
+     */
+    public void record(UUID recipientId, Kind kind, Integer groupId, Integer relatedEntityId, UUID actorId, String content) {
+        eventPublisher.publishEvent(new NotificationEvent(recipientId, kind, groupId, relatedEntityId, actorId, content));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationEvent(NotificationEvent event) {
+        buffer.compute(new GroupKey(event.recipientId(), event.kind(), event.groupId()), (key, group) -> {
+            Group current = group == null ? new Group() : group;
+            current.count++;
+            current.actorIds.add(event.actorId());
+            current.lastActorId = event.actorId();
+            current.lastContent = event.content();
+            current.relatedEntityId = event.relatedEntityId();
+            return current;
+        });
+    }
+
+    /**
+     * Écrit les groupes dont la fenêtre est écoulée : une transaction et un message WebSocket par groupe.
+     */
+    @Scheduled(fixedDelayString = "${notifications.aggregation.flush-interval-ms:1000}")
+    public void flushExpired() {
+        long deadline = System.currentTimeMillis() - windowMs;
+        List<GroupKey> expired = buffer.entrySet().stream()
+                .filter(entry -> entry.getValue().openedAt <= deadline)
+                .map(Map.Entry::getKey)
+                .toList();
+        expired.forEach(this::flush);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void flushAll() {
+        List.copyOf(buffer.keySet()).forEach(this::flush);
+    }
+
+    private void flush(GroupKey key) {
+        // Un événement arrivé après le retrait ouvre un nouveau groupe
+        Group group = buffer.remove(key);
+        if (group == null) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(key, group));
+        } catch (RuntimeException e) {
+            logger.error("Échec de l'écriture du groupe {} pour {} ({} événements)", key.value(), key.recipientId(), group.count, e);
+        }
+    }
+
+    private void write(GroupKey key, Group group) {
+        Optional<User> recipient = userRepository.findById(key.recipientId());
+        Optional<User> actor = userRepository.findById(group.lastActorId);
+        if (recipient.isEmpty() || actor.isEmpty()) {
+            return; // compte supprimé entre-temps
+        }
+        Notification notification = notificationRepository
+                .findFirstByUserIdUserAndGroupKeyAndReadFalseOrderByCreatedAtDesc(key.recipientId(), key.value())
+                .orElseGet(() -> Notification.builder()
+                        .user(recipient.get())
+                        .title(key.kind().title)
+                        .relatedEntityId(group.relatedEntityId)
+                        .entityType(key.kind().entityType)
+                        .groupKey(key.value())
+                        .eventCount(0)
+                        .build());
+        int total = notification.getEventCount() + group.count;
+        notification.setSender(actor.get());
+        notification.setEventCount(total);
+        notification.setMessage(message(key.kind(), actor.get(), total, group.actorIds.size(), group.lastContent));
+        notification.setCreatedAt(LocalDateTime.now()); // remonte en tête de la boîte de réception
+        notification.setSeen(false);
+
+        Notification saved = notificationRepository.save(notification);
+        // Personnes distinctes sur toute la vie de la notification, fenêtres précédentes comprises
+        group.actorIds.forEach(actorId -> notificationActorRepository.addIfAbsent(saved.getIdNotif(), actorId));
+        long actors = notificationActorRepository.countByNotificationId(saved.getIdNotif());
+        saved.setMessage(message(key.kind(), actor.get(), total, actors, group.lastContent));
+        outboxService.enqueue("/topic/notifications/" + key.recipientId(), notificationMapper.toDTO(saved));
+    }
+
+    private static String message(Kind kind, User actor, int total, long actors, String content) {
+        String name = actor.getFirstName() != null ? actor.getFirstName() + " " + actor.getLastName() : actor.getLastName();
+        String message;
+        if (total == 1) {
+            message = name + kind.single + (kind == Kind.FOLLOW || content == null ? "" : content);
+        } else if (actors <= 1) {
+            // Plusieurs événements d'une même personne
+            message = name + kind.grouped;
+        } else {
+            long others = actors - 1;
+            message = name + " and " + others + (others == 1 ? " other" : " others") + kind.grouped;
+        }
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+}
@@ -1,6 +1,7 @@
 package org.schoolproject.backend.services;
 
 import jakarta.transaction.Transactional;
+import org.schoolproject.backend.dto.CursorPageDTO;
 import org.schoolproject.backend.dto.NotificationDTO;
 
 import java.util.List;
@@ -10,6 +11,7 @@ public interface NotificationService {
 
     NotificationDTO createNotification(UUID userId, String title, String message);
     List<NotificationDTO> getUserNotifications(UUID userId);
+    CursorPageDTO<NotificationDTO> getInboxPage(UUID userId, String cursor, int size);
     int getUnreadCount(UUID userId);
     void markAllAsRead(UUID userId);
     void deleteNotification(int notificationId);
@@ -18,6 +20,7 @@ public interface NotificationService {
      void sendFollowNotification(UUID followerId, UUID followedId);
     void markAsRead(int notificationId);
     void sendRecipePublicationNotification(UUID userId, int recipeId, String recipeTitle);
+    void sendBulkPublicationNotification(UUID userId, int latestRecipeId, int recipeCount);
 
     void markAllAsSeen(UUID userId);
     int getUnseenCount(UUID userId);
@@ -26,5 +29,5 @@ public interface NotificationService {
     void sendCommentNotification(UUID commenterId, UUID recipeOwnerId, int recipeId, String commentContent);
 
     @Transactional
-    void sendReplyNotification(UUID replierId, UUID parentCommentOwnerId, int recipeId, String replyContent);
+    void sendReplyNotification(UUID replierId, UUID parentCommentOwnerId, int parentCommentId, int recipeId, String replyContent);
 }
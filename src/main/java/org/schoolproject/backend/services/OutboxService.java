@@ -0,0 +1,138 @@
+package org.schoolproject.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.schoolproject.backend.entities.OutboxMessage;
+import org.schoolproject.backend.repositories.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boîte d'envoi transactionnelle des messages WebSocket.
+ * Les services écrivent le message dans outbox_messages au sein de leur transaction ; après le commit,
+ * un thread asynchrone l'envoie au broker puis supprime la ligne. Un poller reprend par lots ce qui n'a pas pu
+ * partir (redémarrage, erreur du broker) : l'envoi est « au moins une fois », jamais pour une transaction annulée.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.lease-seconds:30}")
+    private int leaseSeconds;
+
+    @Value("${outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository, SimpMessagingTemplate messagingTemplate,
+                         ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public record MessageEnqueued(long id, String destination, String payload) {
+    }
+
+    /**
+     * Enregistre un message dans la transaction courante ; il sera envoyé après le commit.
+     */
+    public void enqueue(String destination, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize message for " + destination, e);
+        }
+        OutboxMessage message = outboxMessageRepository.save(OutboxMessage.builder()
+                .destination(destination)
+                .payload(json)
+                .createdAt(LocalDateTime.now())
+                .build());
+        eventPublisher.publishEvent(new MessageEnqueued(message.getIdMessage(), destination, json));
+    }
+
+    // Envoi immédiat : la ligne est réservée d'abord pour ne pas doubler un envoi du poller
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMessageEnqueued(MessageEnqueued event) {
+        LocalDateTime now = LocalDateTime.now();
+        if (outboxMessageRepository.claim(event.id(), now, now.plusSeconds(leaseSeconds)) == 0) {
+            return;
+        }
+        if (send(event.destination(), event.payload())) {
+            outboxMessageRepository.deleteByIdIn(List.of(event.id()));
+        }
+    }
+
+    /**
+     * Vide la table par lots : réservation (transaction courte), envoi hors transaction, puis suppression des envoyés.
+     * Un message non envoyé redevient disponible à l'expiration de sa réservation.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:5000}")
+    public void drain() {
+        List<Object[]> batch;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            batch = outboxMessageRepository.claimBatch(now, now.plusSeconds(leaseSeconds), batchSize);
+            List<Long> done = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                long id = ((Number) row[0]).longValue();
+                int attempts = ((Number) row[3]).intValue();
+                if (send((String) row[1], (String) row[2])) {
+                    done.add(id);
+                } else if (attempts >= maxAttempts) {
+                    logger.error("Message {} abandonné après {} tentatives ({})", id, attempts, row[1]);
+                    done.add(id);
+                }
+            }
+            if (!done.isEmpty()) {
+                outboxMessageRepository.deleteByIdIn(done);
+            }
+            if (done.size() < batch.size()) {
+                return; // broker en échec : on attend le prochain passage
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // Le corps est déjà du JSON : envoyé tel quel, sans repasser par le convertisseur Jackson
+    private boolean send(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        try {
+            messagingTemplate.send(destination,
+                    MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+            return true;
+        } catch (MessagingException e) {
+            logger.warn("Envoi vers {} impossible : {}", destination, e.getMessage());
+            return false;
+        }
+    }
+}
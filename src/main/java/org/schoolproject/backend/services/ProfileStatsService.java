@@ -0,0 +1,23 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.dto.ProfileStatsDTO;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface ProfileStatsService {
+    // Abonnés, abonnements, recettes et likes reçus en un appel
+    ProfileStatsDTO getProfileStats(UUID userId);
+
+    // Mises à jour des compteurs, dans la transaction de l'écriture correspondante
+    void recordFollow(UUID followerId, UUID followedId, int delta);
+    void recordRecipe(UUID userId, int delta);
+    void recordRecipeRemoval(UUID userId, int recipeId);
+    void recordLike(int recipeId, int delta);
+
+    // Force le recalcul des compteurs à la prochaine lecture
+    void invalidate(Collection<UUID> userIds);
+
+    // Recalcule les compteurs qui ont dérivé ; retourne le nombre de lignes corrigées
+    int reconcile();
+}
@@ -0,0 +1,20 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.config.RateLimitPolicy;
+
+/**
+ * Stockage des seaux de jetons. L'implémentation locale (LocalRateLimiter) limite par instance ;
+ * pour une limite commune à un cluster, une implémentation sur un stockage partagé déclarée @Primary la remplace.
+ */
+public interface RateLimiter {
+
+    /**
+     * Consomme un jeton du seau identifié par key, selon la capacité et le débit de la politique.
+     */
+    Decision tryConsume(String key, RateLimitPolicy policy);
+
+    record Decision(boolean allowed, long retryAfterSeconds) {
+
+        public static final Decision ALLOWED = new Decision(true, 0);
+    }
+}
@@ -0,0 +1,495 @@
+package org.schoolproject.backend.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.schoolproject.backend.config.CacheConfig;
+import org.schoolproject.backend.dto.RecipeImportStatusDTO;
+import org.schoolproject.backend.dto.RecipeImportStatusDTO.Status;
+import org.schoolproject.backend.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Import de recettes en masse depuis une archive ZIP : un manifeste recipes.json (tableau d'objets)
+ * ou recipes.csv (ligne d'en-tête), et les images qu'il référence par nom (colonne image).
+ * Colonnes : title, description, ingredients, preparation, category, image.
+ * L'archive est copiée dans un fichier temporaire puis traitée en arrière-plan :
+ * le manifeste est lu et validé ligne à ligne, sans être chargé en entier ; les images des lignes valides
+ * sont stockées en parallèle sur un pool borné pendant la lecture ; les recettes et leurs ingrédients sont insérés
+ * par lots (batch JDBC, une transaction et un seul événement d'indexation / de diffusion par lot). Les abonnés de l'auteur reçoivent une seule notification en fin d'import.
+ * Une ligne invalide ou dont l'image échoue est écartée et signalée dans le statut, sans arrêter l'import.
+ * Les statuts sont gardés en mémoire un jour ; un import interrompu par un arrêt n'est pas repris.
+ */
+@Service
+public class RecipeImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final String INSERT_RECIPE = "INSERT INTO recipes " +
+            "(title, description, ingredients, preparation, category, image, creation_date, updated_date, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+    private final NotificationService notificationService;
+    private final IngredientIndex ingredientIndex;
+    private final SimilarRecipeIndex similarRecipeIndex;
+    private final TimelineService timelineService;
+    private final ProfileStatsService profileStatsService;
+    private final ResourceVersionService resourceVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor imageExecutor;
+
+    private final Map<UUID, RecipeImportStatusDTO> statuses = new ConcurrentHashMap<>();
+
+    @Value("${recipe-import.batch-size:200}")
+    private int batchSize;
+
+    public RecipeImportService(UserRepository userRepository, FileStorageService fileStorageService,
+                               NotificationService notificationService, IngredientIndex ingredientIndex,
+                               SimilarRecipeIndex similarRecipeIndex, TimelineService timelineService,
+                               ProfileStatsService profileStatsService, ResourceVersionService resourceVersionService,
+                               ApplicationEventPublisher eventPublisher, CacheManager cacheManager,
+                               JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${recipe-import.image-threads:4}") int imageThreads,
+                               @Value("${recipe-import.image-queue-capacity:100}") int imageQueueCapacity) {
+        this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
+        this.notificationService = notificationService;
+        this.ingredientIndex = ingredientIndex;
+        this.similarRecipeIndex = similarRecipeIndex;
+        this.timelineService = timelineService;
+        this.profileStatsService = profileStatsService;
+        this.resourceVersionService = resourceVersionService;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger counter = new AtomicInteger();
+        // File pleine : le thread d'import stocke lui-même l'image, ce qui ralentit la lecture du manifeste
+        this.imageExecutor = new ThreadPoolExecutor(imageThreads, imageThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(imageQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "recipe-import-image-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, imageExecutor, "recipe.import.images");
+    }
+
+    public record ImportRequested(UUID jobId, UUID userId, Path archive) {
+    }
+
+    // Ligne du manifeste, numérotée à partir de 1
+    private record Row(int line, Map<String, String> fields) {
+
+        String get(String column) {
+            String value = fields.get(column);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+
+    private record Pending(Row row, Future<String> image) {
+    }
+
+    /**
+     * Copie l'archive et lance l'import en arrière-plan ; le statut retourné sert au suivi.
+     */
+    public RecipeImportStatusDTO requestImport(UUID userId, MultipartFile archive) {
+        if (archive == null || archive.isEmpty()) {
+            throw new IllegalArgumentException("Archive required");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        Path copy;
+        try {
+            // Le fichier multipart disparaît avec la requête
+            copy = Files.createTempFile("recipe-import-", ".zip");
+            archive.transferTo(copy);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store import archive", e);
+        }
+        UUID jobId = UUID.randomUUID();
+        RecipeImportStatusDTO status = RecipeImportStatusDTO.builder()
+                .jobId(jobId)
+                .userId(userId)
+                .status(Status.PENDING)
+                .requestedAt(LocalDateTime.now())
+                .build();
+        statuses.put(jobId, status);
+        eventPublisher.publishEvent(new ImportRequested(jobId, userId, copy));
+        return status;
+    }
+
+    public Optional<RecipeImportStatusDTO> getStatus(UUID jobId) {
+        return Optional.ofNullable(statuses.get(jobId));
+    }
+
+    @Async
+    @EventListener
+    public void onImportRequested(ImportRequested event) {
+        RecipeImportStatusDTO status = statuses.get(event.jobId());
+        status.setStatus(Status.RUNNING);
+        try (ZipFile zip = new ZipFile(event.archive().toFile())) {
+            ZipEntry manifest = findManifest(zip);
+            List<Pending> chunk = new ArrayList<>();
+            List<Integer> imported = new ArrayList<>();
+            Consumer<Row> onRow = row -> {
+                status.setProcessed(status.getProcessed() + 1);
+                String problem = validate(row, zip);
+                if (problem != null) {
+                    reject(status, row, problem);
+                    return;
+                }
+                String image = row.get("image");
+                chunk.add(new Pending(row, image == null ? null
+                        : imageExecutor.submit(() -> storeImage(zip, image))));
+                if (chunk.size() >= batchSize) {
+                    imported.addAll(insertChunk(event.userId(), chunk, status));
+                    chunk.clear();
+                }
+            };
+            if (manifest.getName().toLowerCase().endsWith(".json")) {
+                readJson(zip, manifest, onRow);
+            } else {
+                readCsv(zip, manifest, onRow);
+            }
+            imported.addAll(insertChunk(event.userId(), chunk, status));
+
+            if (!imported.isEmpty()) {
+                resourceVersionService.touch(ResourceVersionService.userKey(event.userId()));
+                // Une notification par abonné pour tout l'import, et non une par recette
+                transactionTemplate.executeWithoutResult(tx -> notificationService.sendBulkPublicationNotification(
+                        event.userId(), imported.get(imported.size() - 1), imported.size()));
+            }
+            status.setStatus(Status.COMPLETED);
+            logger.info("Import {} terminé : {} recettes importées, {} lignes écartées", event.jobId(),
+                    status.getImported(), status.getRejected());
+        } catch (IOException | RuntimeException e) {
+            status.setStatus(Status.FAILED);
+            status.setError(e.getMessage());
+            logger.error("Échec de l'import {} après {} lignes", event.jobId(), status.getProcessed(), e);
+        } finally {
+            status.setFinishedAt(LocalDateTime.now());
+            try {
+                Files.deleteIfExists(event.archive());
+            } catch (IOException e) {
+                logger.warn("Archive temporaire {} non supprimée", event.archive());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${recipe-import.status-cleanup-cron:0 15 * * * *}")
+    public void expireStatuses() {
+        LocalDateTime expiry = LocalDateTime.now().minusDays(1);
+        statuses.values().removeIf(status -> status.getFinishedAt() != null && status.getFinishedAt().isBefore(expiry));
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        imageExecutor.shutdownNow();
+    }
+
+    /**
+     * Attend les images du lot puis insère les recettes retenues en une transaction ; retourne leurs identifiants.
+     */
+    private List<Integer> insertChunk(UUID userId, List<Pending> chunk, RecipeImportStatusDTO status) {
+        List<Row> rows = new ArrayList<>();
+        List<String> images = new ArrayList<>();
+        for (Pending pending : chunk) {
+            try {
+                images.add(pending.image() == null ? null : pending.image().get());
+                rows.add(pending.row());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            } catch (ExecutionException e) {
+                reject(status, pending.row(), "image: " + e.getCause().getMessage());
+            }
+        }
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<Integer> ids = transactionTemplate.execute(tx -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Integer> inserted = batchInsert(userId, rows, images, now);
+                // Identifiants éventuellement en cache comme absents ; évincés après le commit
+                Cache recipes = cacheManager.getCache(CacheConfig.RECIPES);
+                if (recipes != null) {
+                    inserted.forEach(recipes::evict);
+                }
+                Map<Integer, String> ingredients = new HashMap<>();
+                for (int i = 0; i < inserted.size(); i++) {
+                    ingredients.put(inserted.get(i), rows.get(i).get("ingredients"));
+                }
+                ingredientIndex.indexAll(ingredients);
+                // Un événement par lot, et non un par recette
+                similarRecipeIndex.recipesChanged(inserted);
+                timelineService.recipesPublished(userId, inserted);
+                profileStatsService.recordRecipe(userId, inserted.size());
+                return inserted;
+            });
+            status.setImported(status.getImported() + ids.size());
+            return ids;
+        } catch (RuntimeException e) {
+            // Lot annulé : ses images n'ont plus de recette
+            images.forEach(fileStorageService::deleteFile);
+            rows.forEach(row -> reject(status, row, "insert: " + e.getMessage()));
+            logger.warn("Lot de {} recettes annulé : {}", rows.size(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<Integer> batchInsert(UUID userId, List<Row> rows, List<String> images, LocalDateTime now) {
+        return jdbcTemplate.execute(
+                connection -> connection.prepareStatement(INSERT_RECIPE, new String[]{"id_recipe"}),
+                (PreparedStatement statement) -> {
+                    Timestamp timestamp = Timestamp.valueOf(now);
+                    for (int i = 0; i < rows.size(); i++) {
+                        Row row = rows.get(i);
+                        statement.setString(1, row.get("title"));
+                        statement.setString(2, row.get("description"));
+                        statement.setString(3, row.get("ingredients"));
+                        statement.setString(4, row.get("preparation"));
+                        statement.setString(5, row.get("category"));
+                        statement.setString(6, images.get(i));
+                        statement.setTimestamp(7, timestamp);
+                        statement.setTimestamp(8, timestamp);
+                        statement.setObject(9, userId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    List<Integer> ids = new ArrayList<>(rows.size());
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getInt(1));
+                        }
+                    }
+                    return ids;
+                });
+    }
+
+    // La taille déclarée a été vérifiée par validate ; la copie s'arrête au-delà (archive falsifiée, bombe de décompression)
+    private String storeImage(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        return fileStorageService.storeFile(name, entry.getSize(),
+                new BoundedInputStream(zip.getInputStream(entry), entry.getSize()), "recipe");
+    }
+
+    // Mêmes limites que les colonnes de recipes
+    private static String validate(Row row, ZipFile zip) {
+        String title = row.get("title");
+        String category = row.get("category");
+        if (title == null || title.length() > 100) {
+            return "title is required (100 characters max)";
+        }
+        if (row.get("ingredients") == null) {
+            return "ingredients are required";
+        }
+        if (row.get("preparation") == null) {
+            return "preparation is required";
+        }
+        if (category == null || category.length() > 30) {
+            return "category is required (30 characters max)";
+        }
+        String image = row.get("image");
+        if (image != null) {
+            ZipEntry entry = zip.getEntry(image);
+            if (entry == null) {
+                return "image " + image + " not found in archive";
+            }
+            // Taille inconnue (-1) refusée : rien ne garantirait la limite avant la copie
+            if (entry.getSize() < 0 || entry.getSize() > FileStorageService.MAX_FILE_SIZE) {
+                return "image " + image + " has an unknown size or exceeds " + FileStorageService.MAX_FILE_SIZE + " bytes";
+            }
+        }
+        return null;
+    }
+
+    private static void reject(RecipeImportStatusDTO status, Row row, String problem) {
+        status.setRejected(status.getRejected() + 1);
+        if (status.getErrors().size() < MAX_REPORTED_ERRORS) {
+            status.getErrors().add("line " + row.line() + ": " + problem);
+        }
+    }
+
+    private static ZipEntry findManifest(ZipFile zip) {
+        ZipEntry json = zip.getEntry("recipes.json");
+        ZipEntry manifest = json != null ? json : zip.getEntry("recipes.csv");
+        if (manifest == null) {
+            throw new IllegalArgumentException("Archive must contain recipes.json or recipes.csv");
+        }
+        return manifest;
+    }
+
+    // Tableau JSON lu objet par objet
+    private void readJson(ZipFile zip, ZipEntry manifest, Consumer<Row> onRow) throws IOException {
+        try (InputStream input = zip.getInputStream(manifest);
+             JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("recipes.json must be an array");
+            }
+            int line = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode node = parser.readValueAsTree();
+                Map<String, String> fields = new HashMap<>();
+                node.fields().forEachRemaining(field -> fields.put(field.getKey(),
+                        field.getValue().isValueNode() ? field.getValue().asText() : null));
+                onRow.accept(new Row(++line, fields));
+            }
+        }
+    }
+
+    // CSV (RFC 4180) : champs entre guillemets pouvant contenir virgules, guillemets doublés et retours à la ligne
+    private static void readCsv(ZipFile zip, ZipEntry manifest, Consumer<Row> onRow) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(manifest), StandardCharsets.UTF_8))) {
+            List<String> header = readCsvRecord(reader);
+            if (header == null) {
+                return;
+            }
+            int line = 0;
+            List<String> values;
+            while ((values = readCsvRecord(reader)) != null) {
+                if (values.size() == 1 && values.get(0).isBlank()) {
+                    continue; // ligne vide
+                }
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.size() && i < values.size(); i++) {
+                    fields.put(header.get(i).trim().toLowerCase(), values.get(i));
+                }
+                onRow.accept(new Row(++line, fields));
+            }
+        }
+    }
+
+    private static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        value.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Lecture limitée à la taille déclarée de l'entrée : au-delà, IOException au lieu de continuer à écrire sur le disque.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        private void consume(int count) throws IOException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new IOException("Archive entry larger than its declared size");
+            }
+        }
+    }
+}
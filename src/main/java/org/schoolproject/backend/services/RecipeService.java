@@ -14,7 +14,7 @@ public interface RecipeService {
 //    RecipeDTO createRecipe(RecipeDTO recipeDTO, MultipartFile recipeImage);
 //    RecipeDTO updateRecipe(int recipeId, RecipeDTO updatedRecipeDTO, MultipartFile newRecipeImage);
     Optional<RecipeDTO> findRecipeById(int recipeId);
-    List<RecipeDTO> findAllRecipes();
+    Page<RecipeDTO> findAllRecipes(int page, int size);
     List<RecipeDTO> findRecipesByUserId(UUID userId);
     void deleteRecipe(int recipeId);
     List<RecipeDTO> searchRecipes(String title, String ingredient, String category);
@@ -0,0 +1,212 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.config.JwtUtil;
+import org.schoolproject.backend.entities.RefreshToken;
+import org.schoolproject.backend.entities.User;
+import org.schoolproject.backend.repositories.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refresh tokens par famille, avec rotation à chaque rafraîchissement et détection de réutilisation.
+ * La rotation est une seule instruction SQL (consommation du jeton + émission du suivant), atomique
+ * même avec plusieurs instances. Un jeton déjà consommé présenté à nouveau révoque toute sa famille,
+ * sauf dans la courte fenêtre de grâce (deux onglets qui rafraîchissent en même temps) où il est seulement refusé.
+ * Les vérifications de révocation sont servies en mémoire par l'ensemble exact des familles révoquées.
+ * Les révocations faites par les autres instances y sont reportées par interrogation périodique de la base ;
+ * l'ensemble est reconstruit régulièrement pour oublier les familles expirées.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtUtil jwtUtil;
+
+    @Value("${refresh-tokens.reuse-grace-ms:10000}")
+    private long reuseGraceMs;
+
+    @Value("${refresh-tokens.sync-interval-ms:5000}")
+    private long syncIntervalMs;
+
+    @Value("${refresh-tokens.purge.batch-size:1000}")
+    private int purgeBatchSize;
+
+    // Remplacé d'un bloc à chaque reconstruction
+    private volatile Set<UUID> revokedFamilies = ConcurrentHashMap.newKeySet();
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtUtil jwtUtil) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtUtil = jwtUtil;
+    }
+
+    public record Rotation(UUID userId, String email, String refreshToken) {
+    }
+
+    /**
+     * Ouvre une nouvelle famille (connexion, inscription) et retourne son premier refresh token.
+     */
+    public String issue(User user) {
+        UUID tokenId = UUID.randomUUID();
+        UUID familyId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenId(tokenId)
+                .familyId(familyId)
+                .user(user)
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofMillis(jwtUtil.getRefreshTokenExpiration())))
+                .build());
+        return jwtUtil.generateRefreshToken(user.getIdUser(), user.getEmail(), tokenId, familyId);
+    }
+
+    /**
+     * Consomme le refresh token et retourne son successeur dans la même famille.
+     * Lève SecurityException si le jeton est invalide, révoqué, expiré ou déjà utilisé.
+     */
+    public Rotation rotate(String refreshToken) {
+        UUID tokenId = parseTokenId(refreshToken);
+        UUID familyId = jwtUtil.extractFamilyId(refreshToken);
+        if (revokedFamilies.contains(familyId)) {
+            throw new SecurityException("Refresh token revoked");
+        }
+        UUID userId = jwtUtil.extractUserId(refreshToken);
+        String email = jwtUtil.extractEmail(refreshToken);
+
+        UUID nextTokenId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        Optional<UUID> rotated = refreshTokenRepository.rotate(tokenId, nextTokenId, now,
+                now.plus(Duration.ofMillis(jwtUtil.getRefreshTokenExpiration())));
+        if (rotated.isEmpty()) {
+            onRejectedRotation(tokenId, familyId, userId, now);
+            throw new SecurityException("Refresh token no longer valid");
+        }
+        return new Rotation(userId, email, jwtUtil.generateRefreshToken(userId, email, nextTokenId, familyId));
+    }
+
+    /**
+     * Vérification alignée sur rotate : signature, famille non révoquée, puis jeton encore consommable en base.
+     * Un jeton déjà consommé est refusé ; présenté hors de la fenêtre de grâce, il révoque sa famille comme à la rotation.
+     */
+    public boolean isValid(String refreshToken) {
+        if (!jwtUtil.validateToken(refreshToken)) {
+            return false;
+        }
+        UUID tokenId = jwtUtil.extractTokenId(refreshToken);
+        UUID familyId = jwtUtil.extractFamilyId(refreshToken);
+        if (tokenId == null || familyId == null || revokedFamilies.contains(familyId)) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (refreshTokenRepository.isUsable(tokenId, now)) {
+            return true;
+        }
+        onRejectedRotation(tokenId, familyId, jwtUtil.extractUserId(refreshToken), now);
+        return false;
+    }
+
+    /**
+     * Révoque la famille du jeton présenté (déconnexion) ; un jeton illisible est ignoré.
+     */
+    public void revoke(String refreshToken) {
+        if (refreshToken == null || !jwtUtil.validateToken(refreshToken)) {
+            return;
+        }
+        UUID familyId = jwtUtil.extractFamilyId(refreshToken);
+        if (familyId != null) {
+            revokeFamily(familyId);
+        }
+    }
+
+    /**
+     * Révoque toutes les sessions de l'utilisateur (changement de mot de passe, suppression du compte).
+     */
+    public void revokeAllForUser(UUID userId) {
+        List<UUID> families = refreshTokenRepository.revokeAllByUserId(userId, LocalDateTime.now());
+        revokedFamilies.addAll(families);
+    }
+
+    /**
+     * Report des révocations faites par les autres instances. La fenêtre recouvre deux intervalles
+     * pour ne pas manquer une révocation validée juste après la lecture précédente.
+     */
+    @Scheduled(fixedDelayString = "${refresh-tokens.sync-interval-ms:5000}",
+            initialDelayString = "${refresh-tokens.sync-interval-ms:5000}")
+    public void syncRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = lastSync.minus(Duration.ofMillis(syncIntervalMs * 2));
+        revokedFamilies.addAll(refreshTokenRepository.findFamiliesRevokedSince(since));
+        lastSync = now;
+    }
+
+    /**
+     * Reconstruction complète : seules les familles révoquées encore porteuses d'un jeton non expiré sont gardées.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${refresh-tokens.rebuild-cron:0 0 * * * *}")
+    public void rebuildRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> families = refreshTokenRepository.findLiveRevokedFamilies(now);
+        Set<UUID> rebuilt = ConcurrentHashMap.newKeySet(families.size());
+        rebuilt.addAll(families);
+        // Les révocations locales faites pendant le chargement sont reportées par la prochaine synchronisation
+        revokedFamilies = rebuilt;
+        lastSync = now;
+        logger.info("Révocations de refresh tokens chargées : {} familles", families.size());
+    }
+
+    @Scheduled(cron = "${refresh-tokens.purge.cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            logger.info("Refresh tokens expirés supprimés : {}", total);
+        }
+    }
+
+    private void revokeFamily(UUID familyId) {
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+        revokedFamilies.add(familyId);
+    }
+
+    // Rotation refusée : réutilisation d'un jeton consommé (hors fenêtre de grâce) => toute la famille est révoquée
+    private void onRejectedRotation(UUID tokenId, UUID familyId, UUID userId, LocalDateTime now) {
+        Optional<LocalDateTime> usedAt = refreshTokenRepository.findUsedAt(tokenId);
+        if (usedAt.isPresent() && usedAt.get().isBefore(now.minus(Duration.ofMillis(reuseGraceMs)))) {
+            logger.warn("Réutilisation d'un refresh token consommé (famille {}, utilisateur {}) : famille révoquée", familyId, userId);
+            revokeFamily(familyId);
+        }
+    }
+
+    private UUID parseTokenId(String refreshToken) {
+        if (!jwtUtil.validateToken(refreshToken)) {
+            throw new SecurityException("Invalid or expired token");
+        }
+        UUID tokenId = jwtUtil.extractTokenId(refreshToken);
+        // Jetons émis avant la rotation : sans jti ni famille, ils ne sont plus acceptés
+        if (tokenId == null || jwtUtil.extractFamilyId(refreshToken) == null) {
+            throw new SecurityException("Refresh token without identifier");
+        }
+        return tokenId;
+    }
+}
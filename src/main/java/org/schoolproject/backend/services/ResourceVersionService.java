@@ -0,0 +1,147 @@
+package org.schoolproject.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs de version en mémoire pour les GET conditionnels (ETag / Last-Modified).
+ * Chaque écriture incrémente la version des ressources touchées après le commit ;
+ * une requête If-None-Match est donc résolue en 304 sans base de données, mapper ni sérialisation.
+ * L'ETag embarque l'instant de démarrage : après un redémarrage, les anciens ETags ne correspondent plus.
+ * Les versions sont gardées dans un cache borné : une clé jamais écrite n'y entre pas, et une clé évincée
+ * prend la version « plancher » courante (« e » + nombre d'évictions), distincte de tout numéro d'écriture.
+ * Les numéros d'écriture viennent d'une séquence unique : une clé recréée ne reprend jamais un ancien numéro.
+ */
+@Service
+public class ResourceVersionService {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final long bootTime = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Version> versions;
+    private final Cache<Integer, UUID> recipeOwners;
+    // Version des clés absentes ; change à chaque éviction
+    private volatile Floor floor = new Floor(0, bootTime);
+
+    public ResourceVersionService(@Value("${resource-versions.max-entries:100000}") long maxEntries,
+                                  @Value("${resource-versions.expire-after-access-ms:3600000}") long expireAfterAccessMs) {
+        Duration expiry = Duration.ofMillis(expireAfterAccessMs);
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(expiry)
+                // Appelé dans l'opération d'éviction : aucune lecture ne voit la clé absente avec l'ancien plancher
+                .<String, Version>evictionListener((key, version, cause) -> raiseFloor(version))
+                .build();
+        this.recipeOwners = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(expiry)
+                .build();
+    }
+
+    public static String userKey(UUID userId) {
+        return "user:" + userId;
+    }
+
+    public static String followersKey(UUID userId) {
+        return "followers:" + userId;
+    }
+
+    public static String followingKey(UUID userId) {
+        return "following:" + userId;
+    }
+
+    public static String recipeKey(int recipeId) {
+        return "recipe:" + recipeId;
+    }
+
+    /**
+     * Pose les en-têtes de cache et indique si le client possède déjà la version courante.
+     * Si true, Spring a préparé la réponse 304 : le contrôleur doit retourner null.
+     */
+    public boolean isNotModified(ServletWebRequest request, String... keys) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(etag(keys), lastModified(keys));
+    }
+
+    public String etag(String... keys) {
+        StringBuilder etag = new StringBuilder("\"").append(Long.toHexString(bootTime));
+        for (String key : keys) {
+            Version version = versions.getIfPresent(key);
+            etag.append('-').append(version != null ? Long.toHexString(version.number) : "e" + Long.toHexString(floor.epoch));
+        }
+        return etag.append('"').toString();
+    }
+
+    public long lastModified(String... keys) {
+        long lastModified = bootTime;
+        for (String key : keys) {
+            Version version = versions.getIfPresent(key);
+            lastModified = Math.max(lastModified, version != null ? version.modifiedAt : floor.at);
+        }
+        return lastModified;
+    }
+
+    /**
+     * Invalide les ressources une fois la transaction courante validée
+     * (immédiatement s'il n'y a pas de transaction).
+     */
+    public void touch(String... keys) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(keys);
+                }
+            });
+        } else {
+            bump(keys);
+        }
+    }
+
+    public void rememberRecipeOwner(int recipeId, UUID ownerId) {
+        recipeOwners.put(recipeId, ownerId);
+    }
+
+    public Optional<UUID> recipeOwner(int recipeId) {
+        return Optional.ofNullable(recipeOwners.getIfPresent(recipeId));
+    }
+
+    public void forgetRecipe(int recipeId) {
+        recipeOwners.invalidate(recipeId);
+    }
+
+    private void bump(String... keys) {
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            // Last-Modified a une précision d'une seconde : on garantit une date strictement croissante
+            versions.asMap().compute(key, (k, current) -> new Version(sequence.incrementAndGet(),
+                    Math.max(now, (current != null ? current.modifiedAt : floor.at) + 1000)));
+        }
+    }
+
+    // Les clés absentes ne doivent paraître ni plus anciennes qu'une version évincée, ni identiques à un ancien plancher
+    private synchronized void raiseFloor(Version evicted) {
+        floor = new Floor(floor.epoch + 1, Math.max(floor.at, evicted.modifiedAt));
+    }
+
+    private record Version(long number, long modifiedAt) {
+    }
+
+    private record Floor(long epoch, long at) {
+    }
+}
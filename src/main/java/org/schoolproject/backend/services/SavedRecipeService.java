@@ -4,14 +4,18 @@ import org.schoolproject.backend.dto.RecipeDTO;
 import org.schoolproject.backend.entities.SavedRecipe;
 import org.springframework.data.domain.Page;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface SavedRecipeService {
-    SavedRecipe toggleSavedRecipe(UUID userId, int recipeId);
+    // true si la recette est désormais enregistrée, false si elle a été retirée
+    boolean toggleSavedRecipe(UUID userId, int recipeId);
     void removeSavedRecipe(UUID userId, int recipeId);
     List<SavedRecipe> getSavedRecipes(UUID userId);
     boolean isSavedRecipe(UUID userId, int recipeId);
+    Map<Integer, Boolean> getSavedStatuses(UUID userId, Collection<Integer> recipeIds);
     void clearAllSavedRecipes(UUID userId);
 
     Page<RecipeDTO> getSavedRecipesPaged(UUID userId, int page, int size, String category);
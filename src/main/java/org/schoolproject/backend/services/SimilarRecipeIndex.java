@@ -0,0 +1,443 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.dto.RecipeDTO;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.entities.RecipeNeighbour;
+import org.schoolproject.backend.mappers.RecipeMapper;
+import org.schoolproject.backend.repositories.RecipeNeighbourRepository;
+import org.schoolproject.backend.repositories.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Recettes similaires précalculées. Chaque recette est réduite à un ensemble de caractéristiques
+ * (ingrédients normalisés, mots du titre, catégorie) résumé par une signature MinHash ; le LSH par bandes
+ * ne compare une recette qu'aux recettes partageant au moins une bande, au lieu de toutes les autres.
+ * Les N meilleurs voisins (Jaccard exact sur les caractéristiques) sont écrits dans recipe_neighbours,
+ * relus par identifiant pour l'affichage ; seules les listes qui ont changé sont réécrites.
+ * Reconstruction complète au démarrage si la table est vide et chaque nuit : le nouveau modèle est construit
+ * hors verrou puis substitué d'un bloc, et les recettes modifiées pendant la construction sont rejouées.
+ * Une recette créée ou modifiée est recalculée après le commit, avec les voisins qu'elle peut déplacer.
+ */
+@Service
+public class SimilarRecipeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarRecipeIndex.class);
+
+    public static final int MAX_NEIGHBOURS = 20;
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int SIGNATURE_SIZE = BANDS * ROWS;
+    private static final int MAX_BUCKET_SIZE = 500;     // bande partagée par trop de recettes : peu discriminante, ignorée
+    private static final int MAX_CANDIDATES = 2000;
+    private static final double MIN_SIMILARITY = 0.1;
+    private static final long[] SEEDS = new Random(0x5EEDL).longs(SIGNATURE_SIZE).toArray();
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeNeighbourRepository recipeNeighbourRepository;
+    private final RecipeMapper recipeMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Modèle en service, modifié sous le moniteur de l'index ; remplacé d'un bloc par rebuild
+    private Model model = new Model();
+    // Recettes modifiées pendant une reconstruction (null hors reconstruction), rejouées sur le nouveau modèle
+    private Set<Integer> changedDuringRebuild;
+
+    @Value("${similar-recipes.neighbours:10}")
+    private int neighbourCount;
+
+    @Value("${similar-recipes.batch-size:500}")
+    private int batchSize;
+
+    public SimilarRecipeIndex(RecipeRepository recipeRepository, RecipeNeighbourRepository recipeNeighbourRepository,
+                              RecipeMapper recipeMapper, ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.recipeNeighbourRepository = recipeNeighbourRepository;
+        this.recipeMapper = recipeMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record RecipeChanged(int recipeId) {
+    }
+
+    public record RecipeRemoved(int recipeId) {
+    }
+
+    public record RecipesChanged(List<Integer> recipeIds) {
+    }
+
+    /**
+     * Caractéristiques, signatures et bandes LSH d'un ensemble de recettes.
+     */
+    private static final class Model {
+        private final Map<Integer, int[]> features = new HashMap<>();     // caractéristiques hachées, triées
+        private final Map<Integer, int[]> signatures = new HashMap<>();
+        private final Map<Long, Set<Integer>> buckets = new HashMap<>();
+
+        void put(int recipeId, String title, String ingredients, String category) {
+            forget(recipeId);
+            int[] hashed = features(title, ingredients, category);
+            if (hashed.length == 0) {
+                return;
+            }
+            int[] signature = minHash(hashed);
+            features.put(recipeId, hashed);
+            signatures.put(recipeId, signature);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bucketKey(signature, band), key -> new HashSet<>()).add(recipeId);
+            }
+        }
+
+        void forget(int recipeId) {
+            features.remove(recipeId);
+            int[] signature = signatures.remove(recipeId);
+            if (signature == null) {
+                return;
+            }
+            for (int band = 0; band < BANDS; band++) {
+                long key = bucketKey(signature, band);
+                Set<Integer> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(recipeId);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+        }
+
+        List<Map.Entry<Integer, Double>> nearest(int recipeId, int count) {
+            int[] own = features.get(recipeId);
+            return candidates(recipeId).stream()
+                    .map(id -> Map.entry(id, jaccard(own, features.get(id))))
+                    .filter(entry -> entry.getValue() >= MIN_SIMILARITY)
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(count)
+                    .toList();
+        }
+
+        // Candidats assez proches pour figurer parmi les voisins de la recette (et réciproquement)
+        Set<Integer> related(int recipeId) {
+            int[] own = features.get(recipeId);
+            if (own == null) {
+                return new HashSet<>();
+            }
+            return candidates(recipeId).stream()
+                    .filter(id -> jaccard(own, features.get(id)) >= MIN_SIMILARITY)
+                    .collect(Collectors.toCollection(HashSet::new));
+        }
+
+        // Recettes partageant au moins une bande avec la recette
+        private Set<Integer> candidates(int recipeId) {
+            int[] signature = signatures.get(recipeId);
+            if (signature == null) {
+                return new HashSet<>();
+            }
+            Set<Integer> candidates = new HashSet<>();
+            for (int band = 0; band < BANDS; band++) {
+                Set<Integer> bucket = buckets.get(bucketKey(signature, band));
+                if (bucket != null && bucket.size() <= MAX_BUCKET_SIZE) {
+                    candidates.addAll(bucket);
+                }
+                if (candidates.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+            candidates.remove(recipeId);
+            return candidates;
+        }
+    }
+
+    /**
+     * Voisins enregistrés, du plus proche au plus lointain : une lecture d'index, aucun calcul.
+     */
+    public List<RecipeDTO> findSimilar(int recipeId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_NEIGHBOURS));
+        List<Integer> ids = recipeNeighbourRepository.findNeighbourIds(recipeId, Limit.of(size));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Recipe> recipes = recipeRepository.findAllWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Recipe::getIdRecipe, Function.identity()));
+        return ids.stream()
+                .map(recipes::get)
+                .filter(Objects::nonNull)
+                .map(recipeMapper::toDto)
+                .toList();
+    }
+
+    // Appelées dans la transaction d'écriture : le recalcul a lieu en arrière-plan après le commit
+    public void recipeChanged(int recipeId) {
+        eventPublisher.publishEvent(new RecipeChanged(recipeId));
+    }
+
+    // Lot de recettes (import) : une relecture et une réécriture des listes pour tout le lot
+    public void recipesChanged(List<Integer> recipeIds) {
+        eventPublisher.publishEvent(new RecipesChanged(List.copyOf(recipeIds)));
+    }
+
+    public void recipeRemoved(int recipeId) {
+        eventPublisher.publishEvent(new RecipeRemoved(recipeId));
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipeChanged(RecipeChanged event) {
+        refresh(event.recipeId());
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipeRemoved(RecipeRemoved event) {
+        refresh(event.recipeId());
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipesChanged(RecipesChanged event) {
+        refresh(event.recipeIds());
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild(recipeNeighbourRepository.count() == 0);
+    }
+
+    @Scheduled(cron = "${similar-recipes.rebuild-cron:0 0 4 * * *}")
+    public void nightlyRebuild() {
+        rebuild(true);
+    }
+
+    /**
+     * Recharge les signatures de toutes les recettes dans un nouveau modèle, hors verrou ; si storeAll, recalcule
+     * aussi tous les voisins, par lots, et réécrit les listes qui ont changé. Le modèle est ensuite substitué
+     * et les recettes modifiées entre-temps sont recalculées.
+     */
+    public void rebuild(boolean storeAll) {
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                logger.info("Index de similarité : reconstruction déjà en cours, ignorée");
+                return;
+            }
+            changedDuringRebuild = new HashSet<>();
+        }
+        long start = System.currentTimeMillis();
+        Set<Integer> replay;
+        Model rebuilt = new Model();
+        int indexed;
+        boolean built = false;
+        try {
+            int afterId = 0;
+            List<Object[]> rows;
+            do {
+                rows = recipeRepository.findSimilarityFeatures(afterId, Limit.of(batchSize));
+                for (Object[] row : rows) {
+                    rebuilt.put((Integer) row[0], (String) row[1], (String) row[2], (String) row[3]);
+                }
+                if (!rows.isEmpty()) {
+                    afterId = (Integer) rows.get(rows.size() - 1)[0];
+                }
+            } while (rows.size() == batchSize);
+
+            // Modèle encore privé : aucun verrou pendant le calcul et l'écriture des voisins
+            if (storeAll) {
+                List<Integer> ids = new ArrayList<>(new TreeSet<>(rebuilt.features.keySet()));
+                for (int from = 0; from < ids.size(); from += batchSize) {
+                    store(rebuilt, ids.subList(from, Math.min(from + batchSize, ids.size())));
+                }
+            }
+            indexed = rebuilt.features.size();
+            built = true;
+        } finally {
+            // En cas d'échec, le modèle en service (tenu à jour pendant ce temps) est conservé
+            synchronized (this) {
+                replay = changedDuringRebuild;
+                changedDuringRebuild = null;
+                if (built) {
+                    model = rebuilt;
+                }
+            }
+        }
+        if (!replay.isEmpty()) {
+            refresh(replay);
+        }
+        logger.info("Index de similarité : {} recettes{} en {} ms ({} modifiées pendant la reconstruction)",
+                indexed, storeAll ? ", voisins recalculés" : "",
+                System.currentTimeMillis() - start, replay.size());
+    }
+
+    // Relit la recette et recalcule sa liste ainsi que celles qu'elle peut déplacer
+    private void refresh(int recipeId) {
+        refresh(List.of(recipeId));
+    }
+
+    private void refresh(Collection<Integer> recipeIds) {
+        Map<Integer, Object[]> rows = new HashMap<>();
+        recipeRepository.findSimilarityFeaturesByIds(recipeIds).forEach(row -> rows.put((Integer) row[0], row));
+        synchronized (this) {
+            // Recettes dont la liste contenait ou pourrait désormais contenir l'une de celles-ci
+            Set<Integer> affected = new HashSet<>();
+            for (int recipeId : recipeIds) {
+                noteChange(recipeId);
+                affected.addAll(model.related(recipeId));
+                Object[] row = rows.get(recipeId);
+                if (row == null) {
+                    // Recette supprimée : les lignes qui la citent sont parties en cascade, on recalcule les listes raccourcies
+                    model.forget(recipeId);
+                    continue;
+                }
+                model.put(recipeId, (String) row[1], (String) row[2], (String) row[3]);
+                affected.addAll(model.related(recipeId));
+                affected.add(recipeId);
+            }
+            store(model, affected);
+        }
+    }
+
+    // Sous le moniteur : la reconstruction en cours rejouera cette recette sur son modèle
+    private void noteChange(int recipeId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(recipeId);
+        }
+    }
+
+    // Calcule les voisins des recettes données et réécrit, en une transaction, les seules listes qui ont changé
+    private void store(Model target, Collection<Integer> recipeIds) {
+        List<Integer> present = recipeIds.stream().filter(target.features::containsKey).toList();
+        if (present.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<Map.Entry<Integer, Double>>> neighbours = new HashMap<>();
+        present.forEach(id -> neighbours.put(id, target.nearest(id, neighbourCount)));
+
+        // Recettes supprimées hors de RecipeService (suppression de compte) : oubliées jusqu'à la prochaine reconstruction
+        Set<Integer> referenced = new HashSet<>(present);
+        neighbours.values().forEach(list -> list.forEach(entry -> referenced.add(entry.getKey())));
+        Set<Integer> existing = new HashSet<>(recipeRepository.findExistingIds(referenced));
+        referenced.stream().filter(id -> !existing.contains(id)).forEach(target::forget);
+        neighbours.keySet().retainAll(existing);
+        neighbours.replaceAll((id, list) -> list.stream().filter(entry -> existing.contains(entry.getKey())).toList());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Integer, List<Map.Entry<Integer, Double>>> stored = new HashMap<>();
+            for (Object[] row : recipeNeighbourRepository.findNeighbourRows(neighbours.keySet())) {
+                stored.computeIfAbsent((Integer) row[0], id -> new ArrayList<>())
+                        .add(Map.entry((Integer) row[1], (Double) row[2]));
+            }
+            neighbours.entrySet().removeIf(entry -> entry.getValue().equals(stored.getOrDefault(entry.getKey(), List.of())));
+            if (neighbours.isEmpty()) {
+                return;
+            }
+            recipeNeighbourRepository.deleteByRecipeIdIn(neighbours.keySet());
+            List<RecipeNeighbour> rows = new ArrayList<>();
+            neighbours.forEach((id, list) -> {
+                Recipe recipe = recipeRepository.getReferenceById(id);
+                for (int rank = 0; rank < list.size(); rank++) {
+                    rows.add(RecipeNeighbour.builder()
+                            .recipe(recipe)
+                            .neighbour(recipeRepository.getReferenceById(list.get(rank).getKey()))
+                            .similarity(list.get(rank).getValue())
+                            .neighbourRank(rank)
+                            .build());
+                }
+            });
+            recipeNeighbourRepository.saveAll(rows);
+        });
+    }
+
+
+    // Ingrédients, mots du titre (3 lettres et plus) et catégorie, préfixés pour ne pas se confondre
+    private static int[] features(String title, String ingredients, String category) {
+        Set<String> set = new HashSet<>();
+        IngredientIndex.parse(ingredients).forEach(name -> set.add("i:" + name));
+        for (String word : UserSearchIndex.normalize(title).split("[^a-z0-9]+")) {
+            if (word.length() > 2) {
+                set.add("t:" + word);
+            }
+        }
+        if (category != null && !category.isBlank()) {
+            set.add("c:" + category.toLowerCase());
+        }
+        return set.stream().mapToInt(String::hashCode).distinct().sorted().toArray();
+    }
+
+    private static int[] minHash(int[] hashed) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int feature : hashed) {
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                int h = (int) mix(feature ^ SEEDS[i]);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    // Finaliseur de MurmurHash3 : une fonction de hachage indépendante par graine
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static long bucketKey(int[] signature, int band) {
+        int hash = Arrays.hashCode(Arrays.copyOfRange(signature, band * ROWS, band * ROWS + ROWS));
+        return ((long) band << 32) | (hash & 0xffffffffL);
+    }
+
+    // Jaccard exact sur deux tableaux triés
+    private static double jaccard(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+}
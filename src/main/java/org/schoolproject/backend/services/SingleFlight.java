@@ -0,0 +1,109 @@
+package org.schoolproject.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.schoolproject.backend.config.ReplicaRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement des lectures identiques simultanées (« single flight ») : pour une même clé, un seul appel
+ * du chargeur est en cours ; les appels concurrents attendent son CompletableFuture et reçoivent le même résultat
+ * (ou la même exception). Le résultat peut être gardé quelques centaines de millisecondes (micro-cache)
+ * pour absorber les rafales qui suivent.
+ * Les valeurs sont partagées entre appelants : elles ne doivent pas être modifiées après coup.
+ * Un appelant dont les lectures sont fixées sur le primaire (écriture récente, voir ReplicaRoutingDataSource)
+ * charge lui-même, sans partage ni micro-cache : le résultat commun a pu être lu sur un réplica en retard.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final Cache<K, V> recent;   // null sans micro-cache
+    private final Counter coalesced;
+
+    public SingleFlight(String name, Duration microCache, MeterRegistry meterRegistry) {
+        this.recent = microCache.isZero() || microCache.isNegative() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(microCache)
+                .maximumSize(10_000)
+                .build();
+        this.coalesced = Counter.builder("singleflight.coalesced")
+                .description("Appels servis par un chargement déjà en cours ou par le micro-cache")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        if (ReplicaRoutingDataSource.readsPinnedToPrimary()) {
+            return loader.get();
+        }
+        if (recent != null) {
+            V cached = recent.getIfPresent(key);
+            if (cached != null) {
+                coalesced.increment();
+                return cached;
+            }
+        }
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            coalesced.increment();
+            return await(inFlight);
+        }
+        try {
+            V value = loader.get();
+            // Mis en micro-cache avant de libérer la clé : pas de fenêtre où un nouvel appel rechargerait
+            if (recent != null && value != null) {
+                recent.put(key, value);
+            }
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Oublie le résultat gardé pour cette clé après une écriture qui le rend périmé ;
+     * dans une transaction, l'oubli a lieu après le commit pour qu'une lecture concurrente ne remette pas l'ancienne valeur.
+     */
+    public void forget(K key) {
+        if (recent == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recent.invalidate(key);
+                }
+            });
+        } else {
+            recent.invalidate(key);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.dto.CursorPageDTO;
+import org.schoolproject.backend.dto.RecipeDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface TimelineService {
+    // Recettes des comptes suivis, paginées par curseur
+    CursorPageDTO<RecipeDTO> getHomeTimeline(UUID userId, String cursor, int size);
+
+    // Diffusion aux abonnés une fois la transaction de publication validée
+    void recipePublished(UUID authorId, int recipeId, LocalDateTime createdAt);
+
+    // Idem pour un lot de recettes (import) : une seule diffusion pour tout le lot
+    void recipesPublished(UUID authorId, List<Integer> recipeIds);
+
+    // Maintenance du fil lors d'un abonnement / désabonnement, dans la même transaction
+    void followed(UUID followerId, UUID followedId);
+    void unfollowed(UUID followerId, UUID followedId);
+
+    record RecipePublished(UUID authorId, int recipeId, LocalDateTime createdAt) {
+    }
+
+    record RecipesPublished(UUID authorId, List<Integer> recipeIds) {
+    }
+
+    // L'auteur repasse sous le seuil de diffusion : ses abonnés reçoivent ses dernières recettes
+    record FanOutResumed(UUID authorId) {
+    }
+}
@@ -0,0 +1,22 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.dto.RecipeDTO;
+
+import java.util.List;
+
+public interface TrendingService {
+
+    enum Interaction { LIKE, SAVE, COMMENT }
+
+    // Recettes tendance servies depuis la mémoire ; category null ou "All" pour toutes les catégories
+    List<RecipeDTO> getTrending(String category, int limit);
+
+    // Interaction sur une recette (delta négatif pour un retrait), prise en compte au commit
+    void recordInteraction(int recipeId, Interaction interaction, int delta);
+
+    // Recette modifiée ou supprimée : sa catégorie est relue au prochain rafraîchissement
+    void recipeChanged(int recipeId);
+
+    record RecipeInteraction(int recipeId, Interaction interaction, int delta) {
+    }
+}
@@ -0,0 +1,273 @@
+package org.schoolproject.backend.services;
+
+import org.schoolproject.backend.dto.CursorPageDTO;
+import org.schoolproject.backend.dto.UserCardDTO;
+import org.schoolproject.backend.entities.User;
+import org.schoolproject.backend.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche des utilisateurs en mémoire, pour l'autocomplétion : chaque frappe est résolue
+ * sans requête SQL. Les mots normalisés (minuscules, sans accents) du prénom, du nom et du nom complet
+ * sont rangés dans une map triée ; toutes les clés commençant par q forment l'intervalle [q, q + Character.MAX_VALUE),
+ * parcouru comme un sous-arbre de trie.
+ * Classement : nom complet commençant par q, puis un mot commençant par q, puis q au milieu d'un nom
+ * (ce dernier palier n'est calculé que si les deux premiers ne remplissent pas la page). Les candidats du palier
+ * infixe viennent d'un index de trigrammes : intersection des listes des trigrammes de q, en partant de la plus courte,
+ * puis vérification de la sous-chaîne ; aucune frappe ne parcourt l'ensemble des comptes.
+ * L'index est construit au démarrage et mis à jour après le commit des créations, modifications et suppressions.
+ */
+@Service
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    public static final int MAX_PAGE_SIZE = 50;
+    private static final int GRAM_LENGTH = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-'’.]+");
+
+    private static final int RANK_FULL_NAME = 0;
+    private static final int RANK_WORD = 1;
+    private static final int RANK_INFIX = 2;
+
+    private final UserRepository userRepository;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<UUID>> keys = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<UUID>> grams = new ConcurrentHashMap<>();
+
+    public UserSearchIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    private record Entry(UUID id, String firstName, String lastName, String profilePic,
+                         String sortKey, Set<String> fullNames, Set<String> words, Set<String> grams) {
+    }
+
+    private record Hit(Entry entry, int rank) {
+    }
+
+    private record SearchCursor(int rank, String sortKey, UUID id) {
+    }
+
+    private static final Comparator<Hit> ORDER = Comparator.comparingInt(Hit::rank)
+            .thenComparing(hit -> hit.entry().sortKey())
+            .thenComparing(hit -> hit.entry().id());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = userRepository.findSearchEntries();
+        rows.forEach(row -> put((UUID) row[0], (String) row[1], (String) row[2], (String) row[3]));
+        logger.info("Index de recherche utilisateurs : {} comptes indexés en {} ms", rows.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Indexe (ou réindexe) l'utilisateur une fois la transaction courante validée.
+     */
+    public void index(User user) {
+        UUID id = user.getIdUser();
+        String firstName = user.getFirstName();
+        String lastName = user.getLastName();
+        String profilePic = user.getProfilePic();
+        afterCommit(() -> put(id, firstName, lastName, profilePic));
+    }
+
+    public void remove(UUID userId) {
+        afterCommit(() -> delete(userId));
+    }
+
+    public CursorPageDTO<UserCardDTO> search(String query, UUID excludeUserId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new CursorPageDTO<>(List.of(), null);
+        }
+        SearchCursor after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor);
+
+        // Paliers 0 et 1 : sous-intervalle des clés préfixées par q
+        Map<UUID, Hit> prefixHits = new HashMap<>();
+        keys.subMap(q, true, q + Character.MAX_VALUE, false).forEach((key, ids) -> {
+            for (UUID id : ids) {
+                Entry entry = entries.get(id);
+                if (entry == null || id.equals(excludeUserId)) {
+                    continue;
+                }
+                int rank = entry.fullNames().contains(key) ? RANK_FULL_NAME : RANK_WORD;
+                prefixHits.merge(id, new Hit(entry, rank), (a, b) -> a.rank() <= b.rank() ? a : b);
+            }
+        });
+        List<Hit> hits = new ArrayList<>(prefixHits.values().stream()
+                .filter(hit -> isAfter(hit, after))
+                .sorted(ORDER)
+                .limit(limit + 1L)
+                .toList());
+
+        // Palier 2 : sous-chaîne, uniquement pour compléter la page
+        if (hits.size() <= limit && q.length() >= GRAM_LENGTH) {
+            infixCandidates(q).stream()
+                    .map(entries::get)
+                    .filter(entry -> entry != null && !prefixHits.containsKey(entry.id()) && !entry.id().equals(excludeUserId))
+                    .filter(entry -> entry.fullNames().stream().anyMatch(name -> name.contains(q)))
+                    .map(entry -> new Hit(entry, RANK_INFIX))
+                    .filter(hit -> isAfter(hit, after))
+                    .sorted(ORDER)
+                    .limit(limit + 1L - hits.size())
+                    .forEach(hits::add);
+        }
+
+        boolean hasMore = hits.size() > limit;
+        List<Hit> page = hasMore ? hits.subList(0, limit) : hits;
+        String nextCursor = null;
+        if (hasMore) {
+            Hit last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last);
+        }
+        List<UserCardDTO> items = page.stream()
+                .map(hit -> UserCardDTO.builder()
+                        .idUser(hit.entry().id())
+                        .firstName(hit.entry().firstName())
+                        .lastName(hit.entry().lastName())
+                        .profilePic(hit.entry().profilePic())
+                        .build())
+                .toList();
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    private synchronized void put(UUID id, String firstName, String lastName, String profilePic) {
+        delete(id);
+        String first = normalize(firstName);
+        String last = normalize(lastName);
+        Set<String> fullNames = new LinkedHashSet<>();
+        fullNames.add((first + " " + last).trim());
+        fullNames.add((last + " " + first).trim());
+        fullNames.remove("");
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : SEPARATORS.split(first + " " + last)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        Set<String> nameGrams = new LinkedHashSet<>();
+        fullNames.forEach(name -> nameGrams.addAll(trigrams(name)));
+        Entry entry = new Entry(id, firstName, lastName, profilePic, (last + " " + first).trim(), fullNames, words, nameGrams);
+        entries.put(id, entry);
+        fullNames.forEach(key -> addKey(keys, key, id));
+        words.forEach(key -> addKey(keys, key, id));
+        nameGrams.forEach(gram -> addKey(grams, gram, id));
+    }
+
+    private synchronized void delete(UUID id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        entry.fullNames().forEach(key -> removeKey(keys, key, id));
+        entry.words().forEach(key -> removeKey(keys, key, id));
+        entry.grams().forEach(gram -> removeKey(grams, gram, id));
+    }
+
+    // Comptes contenant tous les trigrammes de q ; la sous-chaîne exacte est vérifiée ensuite
+    private List<UUID> infixCandidates(String q) {
+        List<Set<UUID>> postings = new ArrayList<>();
+        for (String gram : trigrams(q)) {
+            Set<UUID> ids = grams.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        List<Set<UUID>> others = postings.subList(1, postings.size());
+        return postings.get(0).stream()
+                .filter(id -> others.stream().allMatch(ids -> ids.contains(id)))
+                .toList();
+    }
+
+    static Set<String> trigrams(String value) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            result.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    private static void addKey(Map<String, Set<UUID>> index, String key, UUID id) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static void removeKey(Map<String, Set<UUID>> index, String key, UUID id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static boolean isAfter(Hit hit, SearchCursor after) {
+        if (after == null) {
+            return true;
+        }
+        if (hit.rank() != after.rank()) {
+            return hit.rank() > after.rank();
+        }
+        int bySortKey = hit.entry().sortKey().compareTo(after.sortKey());
+        return bySortKey != 0 ? bySortKey > 0 : hit.entry().id().compareTo(after.id()) > 0;
+    }
+
+    // Minuscules, accents retirés, espaces multiples réduits : "Éloïse  Dupont" -> "eloise dupont"
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+
+    private static String encodeCursor(Hit hit) {
+        String raw = hit.rank() + "|" + hit.entry().id() + "|" + hit.entry().sortKey();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SearchCursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+            return new SearchCursor(Integer.parseInt(parts[0]), parts[2], UUID.fromString(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.schoolproject.backend.services;
 
 import org.schoolproject.backend.dto.UserDTO;
+import org.springframework.data.domain.Page;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -17,7 +18,7 @@ public interface UserService {
 
     Optional<UserDTO> findUserByEmail(String email);
 
-    List<UserDTO> findAllUsers();
+    Page<UserDTO> findAllUsers(int page, int size);
 
     boolean existsUserByEmail(String email);
 
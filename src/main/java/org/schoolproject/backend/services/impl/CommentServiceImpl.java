@@ -1,6 +1,6 @@
 package org.schoolproject.backend.services.impl;
 
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import org.schoolproject.backend.dto.CommentDTO;
 import org.schoolproject.backend.entities.Comment;
 import org.schoolproject.backend.entities.Recipe;
@@ -10,15 +10,21 @@ import org.schoolproject.backend.repositories.CommentRepository;
 import org.schoolproject.backend.repositories.RecipeRepository;
 import org.schoolproject.backend.repositories.UserRepository;
 import org.schoolproject.backend.services.CommentService;
+import org.schoolproject.backend.services.OutboxService;
+import org.schoolproject.backend.services.SingleFlight;
+import org.schoolproject.backend.services.TrendingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class CommentServiceImpl implements CommentService {
@@ -27,19 +33,30 @@ public class CommentServiceImpl implements CommentService {
     private final UserRepository userRepository;
     private final RecipeRepository recipeRepository;
     private final CommentMapper commentMapper;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final OutboxService outboxService;
     private final NotificationServiceImpl notificationService;
+    private final TrendingService trendingService;
+    // Lectures concurrentes des commentaires d'une même recette : un seul chargement, gardé quelques centaines de millisecondes
+    private final SingleFlight<Integer, List<CommentDTO>> commentLookups;
+    private final TransactionTemplate readOnlyTransaction;
     private static final Logger logger = LoggerFactory.getLogger(CommentServiceImpl.class);
 
     public CommentServiceImpl(CommentRepository commentRepository, UserRepository userRepository,
                               RecipeRepository recipeRepository, CommentMapper commentMapper,
-                              SimpMessagingTemplate messagingTemplate, NotificationServiceImpl notificationService) {
+                              OutboxService outboxService, NotificationServiceImpl notificationService,
+                              TrendingService trendingService, MeterRegistry meterRegistry,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${single-flight.micro-cache-ms:200}") long microCacheMs) {
         this.commentRepository = commentRepository;
         this.userRepository = userRepository;
         this.recipeRepository = recipeRepository;
         this.commentMapper = commentMapper;
-        this.messagingTemplate = messagingTemplate;
+        this.outboxService = outboxService;
         this.notificationService = notificationService;
+        this.trendingService = trendingService;
+        this.commentLookups = new SingleFlight<>("comments", Duration.ofMillis(microCacheMs), meterRegistry);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     @Override
@@ -57,9 +74,11 @@ public class CommentServiceImpl implements CommentService {
 
         Comment savedComment = commentRepository.save(comment);
         CommentDTO savedCommentDTO = commentMapper.toDto(savedComment);
+        trendingService.recordInteraction(recipe.getIdRecipe(), TrendingService.Interaction.COMMENT, 1);
+        commentLookups.forget(recipe.getIdRecipe());
 
         // Broadcast comment to all subscribers of the recipe
-        messagingTemplate.convertAndSend("/topic/comments/" + commentDTO.getRecipeId(), savedCommentDTO);
+        outboxService.enqueue("/topic/comments/" + commentDTO.getRecipeId(), savedCommentDTO);
 
         // Notify recipe owner if commenter is not the owner
         if (!recipe.getUser().getIdUser().equals(userId)) {
@@ -87,13 +106,16 @@ public class CommentServiceImpl implements CommentService {
 
         Comment savedReply = commentRepository.save(reply);
         CommentDTO savedReplyDTO = commentMapper.toDto(savedReply);
+        trendingService.recordInteraction(recipe.getIdRecipe(), TrendingService.Interaction.COMMENT, 1);
+        commentLookups.forget(recipe.getIdRecipe());
 
         // Broadcast reply to all subscribers of the recipe
-        messagingTemplate.convertAndSend("/topic/comments/" + recipe.getIdRecipe(), savedReplyDTO);
+        outboxService.enqueue("/topic/comments/" + recipe.getIdRecipe(), savedReplyDTO);
 
         // Notify parent comment owner if replier is not the owner
         if (!parentComment.getUser().getIdUser().equals(userId)) {
-            notificationService.sendReplyNotification(userId, parentComment.getUser().getIdUser(), recipe.getIdRecipe(), commentDTO.getContent());
+            notificationService.sendReplyNotification(userId, parentComment.getUser().getIdUser(),
+                    parentComment.getIdComment(), recipe.getIdRecipe(), commentDTO.getContent());
         }
 
         return savedReplyDTO;
@@ -110,21 +132,25 @@ public class CommentServiceImpl implements CommentService {
         CommentDTO deletedCommentDTO = commentMapper.toDto(comment);
         deletedCommentDTO.setDeleted(true);
         commentRepository.delete(comment);
+        trendingService.recordInteraction(comment.getRecipe().getIdRecipe(), TrendingService.Interaction.COMMENT, -1);
+        commentLookups.forget(comment.getRecipe().getIdRecipe());
 
         // Notify subscribers of the deletion
-        messagingTemplate.convertAndSend("/topic/comments/" + comment.getRecipe().getIdRecipe(),
+        outboxService.enqueue("/topic/comments/" + comment.getRecipe().getIdRecipe(),
                 deletedCommentDTO);
     }
 
     @Override
     public List<CommentDTO> getCommentsByRecipeId(int recipeId) {
-        List<Comment> comments = commentRepository.findAllByRecipeIdRecipeOrderByCreatedAtDesc(recipeId);
-        return comments.stream()
-                .map(commentMapper::toDto)
-                .collect(Collectors.toList());
+        // Liste partagée entre appelants : rendue non modifiable
+        return commentLookups.execute(recipeId, () -> readOnlyTransaction.execute(status ->
+                commentRepository.findAllByRecipeIdRecipeOrderByCreatedAtDesc(recipeId).stream()
+                        .map(commentMapper::toDto)
+                        .toList()));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public CommentDTO getCommentById(int commentId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new IllegalArgumentException("Comment not found"));
@@ -1,17 +1,30 @@
 package org.schoolproject.backend.services.impl;
 
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
+import org.schoolproject.backend.dto.CursorPageDTO;
+import org.schoolproject.backend.dto.RelationshipStatusDTO;
+import org.schoolproject.backend.dto.UserCardDTO;
 import org.schoolproject.backend.entities.Follower;
 import org.schoolproject.backend.entities.User;
 import org.schoolproject.backend.repositories.FollowerRepository;
 import org.schoolproject.backend.repositories.UserRepository;
 import org.schoolproject.backend.services.FollowerService;
 import org.schoolproject.backend.services.NotificationService;
+import org.schoolproject.backend.services.ProfileStatsService;
+import org.schoolproject.backend.services.ResourceVersionService;
+import org.schoolproject.backend.services.TimelineService;
+import org.schoolproject.backend.services.UserSearchIndex;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -23,11 +36,24 @@ public class FollowerServiceImpl implements FollowerService {
     private final FollowerRepository followerRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final ResourceVersionService resourceVersionService;
+    private final ProfileStatsService profileStatsService;
+    private final UserSearchIndex userSearchIndex;
+    private final TimelineService timelineService;
 
-    public FollowerServiceImpl(FollowerRepository followerRepository, UserRepository userRepository, NotificationService notificationService) {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_STATUS_IDS = 500;
+
+    public FollowerServiceImpl(FollowerRepository followerRepository, UserRepository userRepository, NotificationService notificationService,
+                               ResourceVersionService resourceVersionService, ProfileStatsService profileStatsService,
+                               UserSearchIndex userSearchIndex, TimelineService timelineService) {
         this.followerRepository = followerRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.resourceVersionService = resourceVersionService;
+        this.profileStatsService = profileStatsService;
+        this.userSearchIndex = userSearchIndex;
+        this.timelineService = timelineService;
     }
 
     @Override
@@ -36,17 +62,19 @@ public class FollowerServiceImpl implements FollowerService {
         if(followerId.equals(followedId)) {
             throw new IllegalArgumentException("You can't follow yourself");
         }
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new IllegalArgumentException("Follower not found"));
-        User followed = userRepository.findById(followedId)
-                .orElseThrow(() -> new IllegalArgumentException("Followed not found"));
-        if(followerRepository.existsByFollowerAndFollowed(follower, followed)) {
+        // INSERT ... ON CONFLICT DO NOTHING : pas de chargement des User, pas de 500 sur un double-clic
+        if (followerRepository.insertIfAbsent(followerId, followedId) == 0) {
+            if (!userRepository.existsById(followerId)) {
+                throw new IllegalArgumentException("Follower not found");
+            }
+            if (!userRepository.existsById(followedId)) {
+                throw new IllegalArgumentException("Followed not found");
+            }
             throw new IllegalArgumentException("Already following this User.");
         }
-        Follower follow = new Follower();
-        follow.setFollower(follower);
-        follow.setFollowed(followed);
-        followerRepository.save(follow);
+        profileStatsService.recordFollow(followerId, followedId, 1);
+        timelineService.followed(followerId, followedId);
+        touchFollowLists(followerId, followedId);
         notificationService.sendFollowNotification(followerId, followedId);
 
     }
@@ -54,30 +82,53 @@ public class FollowerServiceImpl implements FollowerService {
     @Override
     @Transactional
     public void unfollowUser(UUID followerId, UUID followedId) {
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new IllegalArgumentException("Follower not found"));
-
-        User followed = userRepository.findById(followedId)
-                .orElseThrow(() -> new IllegalArgumentException("Followed user not found"));
-
-        Follower follow = followerRepository.findByFollowerAndFollowed(follower, followed)
-                .orElseThrow(() -> new IllegalArgumentException("Not following this user."));
+        if (followerRepository.deleteByFollowerIdUserAndFollowedIdUser(followerId, followedId) == 0) {
+            throw new IllegalArgumentException("Not following this user.");
+        }
+        profileStatsService.recordFollow(followerId, followedId, -1);
+        timelineService.unfollowed(followerId, followedId);
+        touchFollowLists(followerId, followedId);
 
-        followerRepository.delete(follow);
+    }
 
+    private void touchFollowLists(UUID followerId, UUID followedId) {
+        resourceVersionService.touch(ResourceVersionService.followersKey(followedId),
+                ResourceVersionService.followingKey(followerId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean isFollowing(UUID followerId, UUID followedId) {
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new IllegalArgumentException("Follower not found"));
-        User followed = userRepository.findById(followedId)
-                .orElseThrow(() -> new IllegalArgumentException("Followed user not found"));
+        return followerRepository.existsByFollowerIdUserAndFollowedIdUser(followerId, followedId);
+    }
 
-        return followerRepository.existsByFollowerAndFollowed(follower, followed);
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, RelationshipStatusDTO> getRelationships(UUID userId, Collection<UUID> targetIds) {
+        Collection<UUID> ids = new LinkedHashSet<>(targetIds);
+        if (ids.size() > MAX_STATUS_IDS) {
+            throw new IllegalArgumentException("Too many ids (max " + MAX_STATUS_IDS + ")");
+        }
+        Map<UUID, RelationshipStatusDTO> statuses = new LinkedHashMap<>();
+        ids.forEach(id -> statuses.put(id, new RelationshipStatusDTO(false, false)));
+        if (ids.isEmpty()) {
+            return statuses;
+        }
+        for (Object[] pair : followerRepository.findRelationships(userId, ids)) {
+            UUID follower = (UUID) pair[0];
+            UUID followed = (UUID) pair[1];
+            if (follower.equals(userId)) {
+                statuses.get(followed).setFollowing(true);
+            }
+            if (followed.equals(userId)) {
+                statuses.get(follower).setFollowedBy(true);
+            }
+        }
+        return statuses;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Follower> getFollowers(UUID userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -85,28 +136,67 @@ public class FollowerServiceImpl implements FollowerService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Follower> getFollowing(UUID userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         return followerRepository.findAllByFollower(user);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<UserCardDTO> getFollowersPage(UUID userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Un élément de plus que demandé pour savoir s'il existe une page suivante
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserCardDTO> cards;
+        if (cursor == null || cursor.isBlank()) {
+            cards = followerRepository.findFollowerCards(userId, limit);
+        } else {
+            CursorPageDTO.Cursor position = CursorPageDTO.decodeCursor(cursor);
+            cards = followerRepository.findFollowerCardsBefore(userId, position.at(), (int) position.id(), limit);
+        }
+        return toCursorPage(cards, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<UserCardDTO> getFollowingPage(UUID userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserCardDTO> cards;
+        if (cursor == null || cursor.isBlank()) {
+            cards = followerRepository.findFollowingCards(userId, limit);
+        } else {
+            CursorPageDTO.Cursor position = CursorPageDTO.decodeCursor(cursor);
+            cards = followerRepository.findFollowingCardsBefore(userId, position.at(), (int) position.id(), limit);
+        }
+        return toCursorPage(cards, pageSize);
+    }
+
+    private CursorPageDTO<UserCardDTO> toCursorPage(List<UserCardDTO> cards, int pageSize) {
+        if (cards.size() <= pageSize) {
+            return new CursorPageDTO<>(cards, null);
+        }
+        List<UserCardDTO> page = cards.subList(0, pageSize);
+        UserCardDTO last = page.get(pageSize - 1);
+        return new CursorPageDTO<>(page, CursorPageDTO.encodeCursor(last.getFollowedAt(), last.getFollowId()));
+    }
+
     @Override
     public int getFollowerCount(UUID userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return followerRepository.countByFollowed(user);
+        // Compteur dénormalisé et mis en cache, plus de chargement de l'utilisateur ni de COUNT(*)
+        return (int) profileStatsService.getProfileStats(userId).getFollowers();
     }
 
     @Override
     public int getFollowingCount(UUID userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return followerRepository.countByFollower(user);
+        return (int) profileStatsService.getProfileStats(userId).getFollowing();
     }
 
     // Nouvelle méthode pour suggestions (utilisateurs non suivis)
     @Override
+    @Transactional(readOnly = true)
     public List<User> getSuggestedUsers(UUID userId) {
         User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -123,17 +213,28 @@ public class FollowerServiceImpl implements FollowerService {
 
     // Nouvelle méthode pour recherche par nom/prénom
     @Override
+    @Transactional(readOnly = true)
     public List<User> searchUsers(UUID excludeUserId, String query) {
-        return userRepository.findByLastNameContainingIgnoreCaseOrFirstNameContainingIgnoreCase(query, query)
+        // Première page de l'index, dans l'ordre de pertinence de l'index
+        List<UUID> ids = userSearchIndex.search(query, excludeUserId, null, UserSearchIndex.MAX_PAGE_SIZE).getItems()
                 .stream()
-                .filter(user -> !user.getIdUser().equals(excludeUserId))
-                .sorted((u1, u2) -> {
-                    int lastNameCompare = u1.getLastName().compareToIgnoreCase(u2.getLastName());
-                    return lastNameCompare != 0 ? lastNameCompare : u1.getFirstName().compareToIgnoreCase(u2.getFirstName());
-                })
+                .map(UserCardDTO::getIdUser)
+                .toList();
+        Map<UUID, User> users = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getIdUser, user -> user));
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<UserCardDTO> searchUsersPage(UUID excludeUserId, String query, String cursor, int size) {
+        return userSearchIndex.search(query, excludeUserId, cursor, size);
+    }
     @Override
+    @Transactional(readOnly = true)
     public List<User> getRandomSuggestedUsers(UUID userId, int limit) {
         List<User> suggestedUsers = getSuggestedUsers(userId);
         Collections.shuffle(suggestedUsers, new Random());
@@ -1,17 +1,22 @@
 package org.schoolproject.backend.services.impl;
 
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import org.schoolproject.backend.entities.Like;
-import org.schoolproject.backend.entities.Recipe;
-import org.schoolproject.backend.entities.User;
 import org.schoolproject.backend.repositories.LikeRepository;
 import org.schoolproject.backend.repositories.RecipeRepository;
 import org.schoolproject.backend.repositories.UserRepository;
 import org.schoolproject.backend.services.LikeService;
+import org.schoolproject.backend.services.ProfileStatsService;
+import org.schoolproject.backend.services.TrendingService;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 
@@ -21,58 +26,82 @@ public class LikeServiceImpl implements LikeService {
     private final LikeRepository likeRepository;
     private final UserRepository userRepository;
     private final RecipeRepository recipeRepository;
+    private final ProfileStatsService profileStatsService;
+    private final TrendingService trendingService;
 
-    public LikeServiceImpl(LikeRepository likeRepository, UserRepository userRepository, RecipeRepository recipeRepository) {
+    private static final int MAX_STATUS_IDS = 500;
+
+    public LikeServiceImpl(LikeRepository likeRepository, UserRepository userRepository, RecipeRepository recipeRepository,
+                           ProfileStatsService profileStatsService, TrendingService trendingService) {
         this.likeRepository = likeRepository;
         this.userRepository = userRepository;
         this.recipeRepository = recipeRepository;
+        this.profileStatsService = profileStatsService;
+        this.trendingService = trendingService;
     }
 
     @Override
     @Transactional
-    public Like toggleLike(UUID userId, int recipeId) {
-        User user = userRepository.findByIdUser(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Recipe recipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
-        Optional<Like> existingLike = likeRepository.findByUserIdUserAndRecipeIdRecipe(userId, recipeId);
-
-        if(existingLike.isPresent()) {
-            likeRepository.delete(existingLike.get());
-            return null;
-        }else{
-            Like like = new Like();
-            like.setUser(user);
-            like.setRecipe(recipe);
-            return likeRepository.save(like);
+    public boolean toggleLike(UUID userId, int recipeId) {
+        int result = likeRepository.toggle(userId, recipeId);
+        if (result == 0) {
+            // Rien n'a changé : soit la recette / l'utilisateur n'existe pas, soit un double-clic a déjà inséré le like
+            if (!recipeRepository.existsById(recipeId)) {
+                throw new IllegalArgumentException("Recipe not found");
+            }
+            if (!userRepository.existsById(userId)) {
+                throw new IllegalArgumentException("User not found");
+            }
+            return true;
         }
+        profileStatsService.recordLike(recipeId, result);
+        trendingService.recordInteraction(recipeId, TrendingService.Interaction.LIKE, result);
+        return result > 0;
     }
 
     @Override
     @Transactional
     public void deleteLike(UUID userId, int recipeId) {
-        Like like = likeRepository.findByUserIdUserAndRecipeIdRecipe(userId, recipeId)
-                .orElseThrow(() -> new RuntimeException("Like not found"));
-
-        likeRepository.delete(like);
+        if (likeRepository.deleteByUserIdUserAndRecipeIdRecipe(userId, recipeId) == 0) {
+            throw new IllegalArgumentException("Like not found");
+        }
+        profileStatsService.recordLike(recipeId, -1);
+        trendingService.recordInteraction(recipeId, TrendingService.Interaction.LIKE, -1);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean isLikedByUser(UUID userId, int recipeId) {
         return likeRepository.existsByUserIdUserAndRecipeIdRecipe(userId, recipeId);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, Boolean> getLikeStatuses(UUID userId, Collection<Integer> recipeIds) {
+        Set<Integer> ids = new LinkedHashSet<>(recipeIds);
+        if (ids.size() > MAX_STATUS_IDS) {
+            throw new IllegalArgumentException("Too many recipe ids (max " + MAX_STATUS_IDS + ")");
+        }
+        Set<Integer> liked = ids.isEmpty() ? Set.of() : new HashSet<>(likeRepository.findLikedRecipeIds(userId, ids));
+        Map<Integer, Boolean> statuses = new LinkedHashMap<>();
+        ids.forEach(id -> statuses.put(id, liked.contains(id)));
+        return statuses;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Like> getLikesByUser(UUID userId) {
         return likeRepository.findAllByUserIdUser(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Like> getLikesByRecipe(int recipeId) {
         return likeRepository.findAllByRecipeIdRecipe(recipeId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public int getLikeCountByRecipe(int recipeId) {
         return likeRepository.countByRecipeIdRecipe(recipeId);
     }
@@ -0,0 +1,58 @@
+package org.schoolproject.backend.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.schoolproject.backend.config.RateLimitPolicy;
+import org.schoolproject.backend.services.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seaux de jetons en mémoire, sans verrou : l'état d'un seau tient dans un seul AtomicLong,
+ * l'instant (nanoTime) auquel il sera de nouveau plein (algorithme GCRA, équivalent au seau de jetons).
+ * Consommer un jeton repousse cet instant d'un intervalle de recharge ; la requête est refusée
+ * si l'instant dépasse maintenant + capacité × intervalle. Mise à jour par compareAndSet.
+ * Les seaux sont gardés dans un cache borné ; un seau inactif expire, ce qui équivaut à un seau plein.
+ */
+@Service
+public class LocalRateLimiter implements RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public LocalRateLimiter(@Value("${rate-limit.local.max-buckets:100000}") long maxBuckets,
+                            @Value("${rate-limit.local.idle-expiry-ms:600000}") long idleExpiryMs,
+                            MeterRegistry meterRegistry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMillis(idleExpiryMs))
+                .build();
+        Gauge.builder("ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Seaux de limitation actifs sur cette instance")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Decision tryConsume(String key, RateLimitPolicy policy) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, policy.refillPerMinute());
+        long tolerance = interval * policy.capacity();
+        long now = System.nanoTime();
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long excess = next - now - tolerance;
+            if (excess > 0) {
+                return new Decision(false, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(excess + TimeUnit.SECONDS.toNanos(1) - 1)));
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return Decision.ALLOWED;
+            }
+        }
+    }
+}
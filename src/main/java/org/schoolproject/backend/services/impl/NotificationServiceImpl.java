@@ -1,6 +1,9 @@
 package org.schoolproject.backend.services.impl;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.annotation.Transactional;
+import org.schoolproject.backend.dto.CursorPageDTO;
 import org.schoolproject.backend.dto.NotificationDTO;
 import org.schoolproject.backend.entities.Notification;
 import org.schoolproject.backend.entities.User;
@@ -8,10 +11,14 @@ import org.schoolproject.backend.mappers.NotificationMapper;
 import org.schoolproject.backend.repositories.FollowerRepository;
 import org.schoolproject.backend.repositories.NotificationRepository;
 import org.schoolproject.backend.repositories.UserRepository;
+import org.schoolproject.backend.services.NotificationAggregator;
 import org.schoolproject.backend.services.NotificationService;
+import org.schoolproject.backend.services.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -27,18 +34,31 @@ public class NotificationServiceImpl implements NotificationService {
     private final FollowerRepository followerRepository;
     private final UserRepository userRepository;
     private final NotificationMapper notificationMapper; // Utilisation du mapper
-    private final SimpMessagingTemplate messagingTemplate;
+    private final OutboxService outboxService;
+    private final NotificationAggregator notificationAggregator;
+    private final MeterRegistry meterRegistry;
     private static final Logger logger = LoggerFactory.getLogger(NotificationServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int LEGACY_LIST_SIZE = 200;
+
+    @Value("${bulk-delete.batch-size:1000}")
+    private int deleteBatchSize;
+
+    @Value("${notifications.retention.read-days:90}")
+    private int readRetentionDays;
 
 
     public NotificationServiceImpl(NotificationRepository notificationRepository, FollowerRepository followerRepository,
                                    UserRepository userRepository,
-                                   NotificationMapper notificationMapper, SimpMessagingTemplate messagingTemplate) {
+                                   NotificationMapper notificationMapper, OutboxService outboxService,
+                                   NotificationAggregator notificationAggregator, MeterRegistry meterRegistry) {
         this.notificationRepository = notificationRepository;
         this.followerRepository = followerRepository;
         this.userRepository = userRepository;
         this.notificationMapper = notificationMapper;
-        this.messagingTemplate = messagingTemplate;
+        this.outboxService = outboxService;
+        this.notificationAggregator = notificationAggregator;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -57,14 +77,55 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<NotificationDTO> getUserNotifications(UUID userId) {
-        List<Notification> notifications = notificationRepository.findAllByUserIdUserOrderByCreatedAtDesc(userId);
+        // Ancienne liste complète, désormais bornée aux plus récentes : la suite passe par getInboxPage
+        List<Notification> notifications = notificationRepository.findInbox(userId, Limit.of(LEGACY_LIST_SIZE));
         return notifications.stream()
                 .map(notificationMapper::toDTO)  // Conversion en DTO
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<NotificationDTO> getInboxPage(UUID userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Un élément de plus que demandé pour savoir s'il existe une page suivante
+        Limit limit = Limit.of(pageSize + 1);
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findInbox(userId, limit);
+        } else {
+            CursorPageDTO.Cursor position = CursorPageDTO.decodeCursor(cursor);
+            notifications = notificationRepository.findInboxBefore(userId, position.at(), (int) position.id(), limit);
+        }
+        List<NotificationDTO> items = notifications.stream().map(notificationMapper::toDTO).toList();
+        if (items.size() <= pageSize) {
+            return new CursorPageDTO<>(items, null);
+        }
+        List<NotificationDTO> page = items.subList(0, pageSize);
+        NotificationDTO last = page.get(pageSize - 1);
+        return new CursorPageDTO<>(page, CursorPageDTO.encodeCursor(last.getCreatedAt(), last.getIdNotif()));
+    }
+
+    /**
+     * Rétention : supprime par lots les notifications lues plus anciennes que notifications.retention.read-days.
+     * Les non lues sont conservées quel que soit leur âge.
+     */
+    @Scheduled(cron = "${notifications.retention.cron:0 15 3 * * *}")
+    public void purgeExpiredNotifications() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(readRetentionDays);
+        long total = 0;
+        int deleted;
+        do {
+            deleted = notificationRepository.deleteReadBatchBefore(cutoff, deleteBatchSize);
+            total += deleted;
+        } while (deleted == deleteBatchSize);
+        logger.info("Rétention des notifications : {} notifications lues supprimées (avant {})", total, cutoff);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public int getUnreadCount(UUID userId) {
         return notificationRepository.countAllByUserIdUserAndReadFalse(userId);
     }
@@ -86,12 +147,16 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
-    @Transactional
     public void deleteAllNotifications(UUID userId) {
-        notificationRepository.deleteAllByUserIdUser(userId);
+        // Pas de transaction englobante : chaque lot est validé séparément
+        int deleted;
+        do {
+            deleted = notificationRepository.deleteBatchByUserIdUser(userId, deleteBatchSize);
+        } while (deleted == deleteBatchSize);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public NotificationDTO getNotificationById(int notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new IllegalArgumentException("Notification not found"));
@@ -107,34 +172,9 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     @Transactional
     public void sendFollowNotification(UUID followerId, UUID followedId) {
-        Optional<User> followerOpt = userRepository.findById(followerId);
-        Optional<User> followedOpt = userRepository.findById(followedId);
-
-        if (followerOpt.isEmpty() || followedOpt.isEmpty()) {
-            throw new IllegalArgumentException("User not found");
-        }
-
-        User follower = followerOpt.get();
-        User followed = followedOpt.get();
-
-        String title = "New follower";
-        String message = ((follower.getFirstName() != null) ? follower.getFirstName() + " " + follower.getLastName() : follower.getLastName()) + " follow you.";
-
-        Notification notification = Notification.builder()
-                .user(followed)
-                .sender(follower)
-                .title(title)
-                .message(message)
-                .createdAt(LocalDateTime.now())
-                .read(false)
-                .relatedEntityId(null)
-                .entityType("user")
-                .build();
-
-        Notification savedNotification = notificationRepository.save(notification);
-
-        // Envoi via WebSocket
-        messagingTemplate.convertAndSend("/topic/notifications/" + followedId, notificationMapper.toDTO(savedNotification));
+        // Regroupée par destinataire, écrite et envoyée via WebSocket une fois la fenêtre écoulée
+        recordFanOut("follow", 1);
+        notificationAggregator.record(followedId, NotificationAggregator.Kind.FOLLOW, null, null, followerId, null);
     }
 
     @Override
@@ -159,6 +199,18 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     @Transactional
     public void sendRecipePublicationNotification(UUID userId, int recipeId, String recipeTitle) {
+        notifyFollowersOfPublication(userId, recipeId, " published a new recipe : " + recipeTitle);
+    }
+
+    // Import en masse : une seule notification par abonné pour toutes les recettes importées de l'auteur
+    @Override
+    @Transactional
+    public void sendBulkPublicationNotification(UUID userId, int latestRecipeId, int recipeCount) {
+        notifyFollowersOfPublication(userId, latestRecipeId,
+                recipeCount == 1 ? " published a new recipe." : " published " + recipeCount + " new recipes.");
+    }
+
+    private void notifyFollowersOfPublication(UUID userId, int recipeId, String action) {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isEmpty()) {
             logger.error("Utilisateur {} non trouvé", userId);
@@ -171,7 +223,7 @@ public class NotificationServiceImpl implements NotificationService {
         // Utiliser la nouvelle méthode pour obtenir les abonnés
         List<User> followers = getFollowers(userId);
         logger.debug("Nombre d’abonnés pour {} : {}", userId, followers.size());
-        followers.forEach(follower -> logger.debug("Abonné : {} - {}", follower.getIdUser(), follower.getEmail()));
+        recordFanOut("recipe", followers.size());
 
         if (followers.isEmpty()) {
             logger.warn("Aucun abonné trouvé pour l’utilisateur {}", userId);
@@ -179,7 +231,7 @@ public class NotificationServiceImpl implements NotificationService {
         }
 
         String title = "New recipe";
-        String message = (author.getFirstName() != null ? author.getFirstName() + " " + author.getLastName() : author.getLastName()) + " published a new recipe : " + recipeTitle;
+        String message = (author.getFirstName() != null ? author.getFirstName() + " " + author.getLastName() : author.getLastName()) + action;
 
         for (User follower : followers) {
             Notification notification = Notification.builder()
@@ -196,8 +248,8 @@ public class NotificationServiceImpl implements NotificationService {
             Notification savedNotification = notificationRepository.save(notification);
             logger.debug("Notification enregistrée pour {} : {}", follower.getIdUser(), savedNotification);
 
-            messagingTemplate.convertAndSend("/topic/notifications/" + follower.getIdUser(), notificationMapper.toDTO(savedNotification));
-            logger.debug("Notification envoyée via WebSocket à /topic/notifications/{}", follower.getIdUser());
+            outboxService.enqueue("/topic/notifications/" + follower.getIdUser(), notificationMapper.toDTO(savedNotification));
+            logger.debug("Notification mise en file pour /topic/notifications/{}", follower.getIdUser());
         }
     }
 
@@ -211,10 +263,20 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public int getUnseenCount(UUID userId) {
         return notificationRepository.countAllByUserIdUserAndReadFalse(userId);
     }
 
+    // Nombre de destinataires par événement de notification
+    private void recordFanOut(String type, int recipients) {
+        DistributionSummary.builder("notifications.fanout.size")
+                .description("Nombre de destinataires par notification envoyée")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(recipients);
+    }
+
     // Méthode modifiée pour retourner List<User>
     private List<User> getFollowers(UUID userId) {
         List<User> followers = followerRepository.findFollowersByFollowedId(userId);
@@ -227,66 +289,17 @@ public class NotificationServiceImpl implements NotificationService {
     @Transactional
     @Override
     public void sendCommentNotification(UUID commenterId, UUID recipeOwnerId, int recipeId, String commentContent) {
-        Optional<User> commenterOpt = userRepository.findById(commenterId);
-        Optional<User> recipeOwnerOpt = userRepository.findById(recipeOwnerId);
-
-        if (commenterOpt.isEmpty() || recipeOwnerOpt.isEmpty()) {
-            throw new IllegalArgumentException("User not found");
-        }
-
-        User commenter = commenterOpt.get();
-        User recipeOwner = recipeOwnerOpt.get();
-
-        String title = "New comment on your recipe";
-        String message = (commenter.getFirstName() != null ? commenter.getFirstName() + " " + commenter.getLastName() : commenter.getLastName()) +
-                " commented: " + commentContent;
-
-        Notification notification = Notification.builder()
-                .user(recipeOwner)
-                .sender(commenter)
-                .title(title)
-                .message(message)
-                .createdAt(LocalDateTime.now())
-                .read(false)
-                .seen(false)
-                .relatedEntityId(recipeId)
-                .entityType("comment")
-                .build();
-
-        Notification savedNotification = notificationRepository.save(notification);
-        messagingTemplate.convertAndSend("/topic/notifications/" + recipeOwnerId, notificationMapper.toDTO(savedNotification));
+        recordFanOut("comment", 1);
+        notificationAggregator.record(recipeOwnerId, NotificationAggregator.Kind.COMMENT, recipeId, recipeId, commenterId, commentContent);
     }
 
     @Transactional
     @Override
-    public void sendReplyNotification(UUID replierId, UUID parentCommentOwnerId, int recipeId, String replyContent) {
-        Optional<User> replierOpt = userRepository.findById(replierId);
-        Optional<User> parentCommentOwnerOpt = userRepository.findById(parentCommentOwnerId);
-
-        if (replierOpt.isEmpty() || parentCommentOwnerOpt.isEmpty()) {
-            throw new IllegalArgumentException("User not found");
-        }
-
-        User replier = replierOpt.get();
-        User parentCommentOwner = parentCommentOwnerOpt.get();
-
-        String title = "New reply to your comment";
-        String message = (replier.getFirstName() != null ? replier.getFirstName() + " " + replier.getLastName() : replier.getLastName()) +
-                " replied: " + replyContent;
-
-        Notification notification = Notification.builder()
-                .user(parentCommentOwner)
-                .sender(replier)
-                .title(title)
-                .message(message)
-                .createdAt(LocalDateTime.now())
-                .read(false)
-                .seen(false)
-                .relatedEntityId(recipeId)
-                .entityType("comment")
-                .build();
-
-        Notification savedNotification = notificationRepository.save(notification);
-        messagingTemplate.convertAndSend("/topic/notifications/" + parentCommentOwnerId, notificationMapper.toDTO(savedNotification));
+    public void sendReplyNotification(UUID replierId, UUID parentCommentOwnerId, int parentCommentId, int recipeId,
+                                      String replyContent) {
+        recordFanOut("reply", 1);
+        // Regroupées par commentaire parent ; la notification renvoie à la recette
+        notificationAggregator.record(parentCommentOwnerId, NotificationAggregator.Kind.REPLY, parentCommentId, recipeId,
+                replierId, replyContent);
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package org.schoolproject.backend.services.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import org.schoolproject.backend.config.CacheConfig;
+import org.schoolproject.backend.dto.ProfileStatsDTO;
+import org.schoolproject.backend.entities.UserStats;
+import org.schoolproject.backend.repositories.RecipeRepository;
+import org.schoolproject.backend.repositories.UserStatsRepository;
+import org.schoolproject.backend.services.ProfileStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class ProfileStatsServiceImpl implements ProfileStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileStatsServiceImpl.class);
+
+    private final UserStatsRepository userStatsRepository;
+    private final RecipeRepository recipeRepository;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${profile-stats.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    public ProfileStatsServiceImpl(UserStatsRepository userStatsRepository, RecipeRepository recipeRepository,
+                                   CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.userStatsRepository = userStatsRepository;
+        this.recipeRepository = recipeRepository;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.PROFILE_STATS, key = "#userId")
+    public ProfileStatsDTO getProfileStats(UUID userId) {
+        UserStats stats = userStatsRepository.findById(userId).orElseGet(() -> {
+            userStatsRepository.initialize(userId);
+            return userStatsRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        });
+        return ProfileStatsDTO.builder()
+                .userId(userId)
+                .followers(stats.getFollowerCount())
+                .following(stats.getFollowingCount())
+                .recipes(stats.getRecipeCount())
+                .likes(stats.getLikeCount())
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public void recordFollow(UUID followerId, UUID followedId, int delta) {
+        userStatsRepository.addFollow(followerId, followedId, delta);
+        evict(followerId);
+        evict(followedId);
+    }
+
+    @Override
+    @Transactional
+    public void recordRecipe(UUID userId, int delta) {
+        userStatsRepository.addRecipes(userId, delta);
+        evict(userId);
+    }
+
+    @Override
+    @Transactional
+    public void recordRecipeRemoval(UUID userId, int recipeId) {
+        userStatsRepository.removeRecipe(userId, recipeId);
+        evict(userId);
+    }
+
+    @Override
+    @Transactional
+    public void recordLike(int recipeId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        recipeRepository.findOwnerId(recipeId).ifPresent(ownerId -> {
+            userStatsRepository.addLikes(ownerId, delta);
+            evict(ownerId);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void invalidate(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userStatsRepository.deleteAllByUserIdIn(userIds);
+        userIds.forEach(this::evict);
+    }
+
+    /**
+     * Contrôle de cohérence : compare chaque ligne aux COUNT réels, par lots, et corrige les dérives
+     * (écritures hors service, ligne initialisée pendant une écriture concurrente...).
+     */
+    @Override
+    @Scheduled(cron = "${profile-stats.reconcile-cron:0 30 3 * * *}")
+    public int reconcile() {
+        UUID after = new UUID(0, 0);
+        int fixed = 0;
+        List<UUID> ids;
+        do {
+            ids = userStatsRepository.findIdsAfter(after, reconcileBatchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<UUID> drifted = userStatsRepository.reconcile(ids);
+            drifted.forEach(this::evict);
+            fixed += drifted.size();
+            after = ids.get(ids.size() - 1);
+        } while (ids.size() == reconcileBatchSize);
+
+        meterRegistry.counter("profile.stats.drift").increment(fixed);
+        if (fixed > 0) {
+            logger.warn("Contrôle de cohérence : {} compteurs de profil corrigés", fixed);
+        }
+        return fixed;
+    }
+
+    // Après le commit de la transaction courante (cache transactionnel)
+    private void evict(UUID userId) {
+        Cache cache = cacheManager.getCache(CacheConfig.PROFILE_STATS);
+        if (cache != null) {
+            cache.evict(userId);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.schoolproject.backend.services.impl;
 
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
+import org.schoolproject.backend.config.CacheConfig;
 import org.schoolproject.backend.dto.RecipeDTO;
 import org.schoolproject.backend.entities.Recipe;
 import org.schoolproject.backend.entities.User;
@@ -8,18 +9,28 @@ import org.schoolproject.backend.mappers.RecipeMapper;
 import org.schoolproject.backend.repositories.RecipeRepository;
 import org.schoolproject.backend.repositories.UserRepository;
 import org.schoolproject.backend.services.FileStorageService;
+import org.schoolproject.backend.services.IngredientIndex;
+import org.schoolproject.backend.services.SimilarRecipeIndex;
 import org.schoolproject.backend.services.NotificationService;
+import org.schoolproject.backend.services.ProfileStatsService;
 import org.schoolproject.backend.services.RecipeService;
+import org.schoolproject.backend.services.ResourceVersionService;
+import org.schoolproject.backend.services.TimelineService;
+import org.schoolproject.backend.services.TrendingService;
 import org.schoolproject.backend.services.UserService;
 import org.schoolproject.backend.specifications.RecipeSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -31,23 +42,49 @@ import java.util.stream.Collectors;
 @Service
 public class RecipeServiceImpl implements RecipeService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final RecipeRepository recipeRepository;
     private final FileStorageService fileStorageService;
     private final UserRepository userRepository;
     private final RecipeMapper recipeMapper;
     private final NotificationService notificationService;
+    private final ResourceVersionService resourceVersionService;
+    private final ProfileStatsService profileStatsService;
+    private final TimelineService timelineService;
+    private final TrendingService trendingService;
+    private final IngredientIndex ingredientIndex;
+    private final SimilarRecipeIndex similarRecipeIndex;
+    // Remplissage du cache RECIPES, partagé par tous les utilisateurs
+    private final TransactionTemplate cacheFillTransaction;
 
     private static final Logger logger = LoggerFactory.getLogger(RecipeServiceImpl.class);
 
-    public RecipeServiceImpl(RecipeRepository recipeRepository, FileStorageService fileStorageService, UserRepository userRepository, RecipeMapper recipeMapper, NotificationService notificationService) {
+    public RecipeServiceImpl(RecipeRepository recipeRepository, FileStorageService fileStorageService, UserRepository userRepository, RecipeMapper recipeMapper, NotificationService notificationService,
+                             ResourceVersionService resourceVersionService, ProfileStatsService profileStatsService,
+                             TimelineService timelineService, TrendingService trendingService,
+                             IngredientIndex ingredientIndex, SimilarRecipeIndex similarRecipeIndex,
+                             PlatformTransactionManager transactionManager) {
         this.recipeRepository = recipeRepository;
         this.fileStorageService = fileStorageService;
         this.userRepository = userRepository;
 
         this.recipeMapper = recipeMapper;
         this.notificationService = notificationService;
+        this.resourceVersionService = resourceVersionService;
+        this.profileStatsService = profileStatsService;
+        this.timelineService = timelineService;
+        this.trendingService = trendingService;
+        this.ingredientIndex = ingredientIndex;
+        this.similarRecipeIndex = similarRecipeIndex;
+        // Pas en lecture seule : lu sur le primaire, un réplica en retard ne remet pas en cache pour tous
+        // une version antérieure à l'écriture qui vient de l'évincer
+        this.cacheFillTransaction = new TransactionTemplate(transactionManager);
     }
     @Override
+    @Transactional
+    // Un identifiant demandé avant sa création peut être en cache comme absent
+    @CacheEvict(cacheNames = CacheConfig.RECIPES, key = "#result.id")
     public RecipeDTO createRecipe(RecipeDTO recipeDTO, MultipartFile recipeImage, UUID userId) {
         String imgUrl = null;
         if (recipeImage != null && !recipeImage.isEmpty()) {
@@ -62,6 +99,11 @@ public class RecipeServiceImpl implements RecipeService {
         recipe.setUser(user);
 
         Recipe savedRecipe = recipeRepository.save(recipe);
+        ingredientIndex.index(savedRecipe);
+        similarRecipeIndex.recipeChanged(savedRecipe.getIdRecipe());
+        profileStatsService.recordRecipe(userId, 1);
+        resourceVersionService.touch(ResourceVersionService.userKey(userId));
+        timelineService.recipePublished(userId, savedRecipe.getIdRecipe(), savedRecipe.getCreationDate());
 
         logger.debug("before entre notif part");
 
@@ -74,6 +116,7 @@ public class RecipeServiceImpl implements RecipeService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RECIPES, key = "#recipeId")
     public RecipeDTO updateRecipe(int recipeId, RecipeDTO updatedRecipeDTO, MultipartFile newRecipeImage, UUID userId) {
         // Récupérer l'utilisateur connecté depuis le contexte de sécurité
 
@@ -97,7 +140,12 @@ public class RecipeServiceImpl implements RecipeService {
                 existingRecipe.setImage(newImgUrl);
             }
 
-            return recipeMapper.toDto(recipeRepository.save(existingRecipe));
+            resourceVersionService.touch(ResourceVersionService.recipeKey(recipeId), ResourceVersionService.userKey(userId));
+            trendingService.recipeChanged(recipeId);
+            Recipe savedRecipe = recipeRepository.save(existingRecipe);
+            ingredientIndex.index(savedRecipe);
+            similarRecipeIndex.recipeChanged(recipeId);
+            return recipeMapper.toDto(savedRecipe);
         }).orElseThrow(() -> new IllegalArgumentException("Recipe not found"));
     }
 /*
@@ -143,18 +191,25 @@ public class RecipeServiceImpl implements RecipeService {
     }*/
 
     @Override
+    // sync : un seul chargement par clé absente du cache, les appels concurrents attendent son résultat.
+    // sync exclut unless : une recette absente est mise en cache, et sa clé évincée à la création ou à l'import
+    @Cacheable(cacheNames = CacheConfig.RECIPES, key = "#recipeId", sync = true)
     public Optional<RecipeDTO> findRecipeById(int recipeId) {
-        return recipeRepository.findById(recipeId).map(recipeMapper::toDto);
+        // Transaction ouverte par le seul appel qui charge : ceux qui attendent ne tiennent pas de connexion
+        return cacheFillTransaction.execute(status -> recipeRepository.findById(recipeId).map(recipeMapper::toDto));
     }
 
     @Override
-    public List<RecipeDTO> findAllRecipes() {
-        return recipeRepository.findAll().stream()
-                .map(recipeMapper::toDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Page<RecipeDTO> findAllRecipes(int page, int size) {
+        // Liste complète : export NDJSON (ExportService)
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)),
+                Sort.by("idRecipe"));
+        return recipeRepository.findAllWithUser(pageable).map(recipeMapper::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RecipeDTO> findRecipesByUserId(UUID userId) {
         return recipeRepository.findAllByUserIdUserOrderByUpdatedDateDesc(userId).stream()
                 .map(recipeMapper::toDto)
@@ -163,19 +218,29 @@ public class RecipeServiceImpl implements RecipeService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RECIPES, key = "#recipeId")
     public void deleteRecipe(int recipeId) {
         recipeRepository.findById(recipeId).ifPresentOrElse(
                 recipe -> {
                     if (recipe.getImage() != null) {
                         fileStorageService.deleteFile(recipe.getImage());
                     }
+                    // Avant la suppression en cascade des likes, qui sont décomptés du total de l'auteur
+                    profileStatsService.recordRecipeRemoval(recipe.getUser().getIdUser(), recipeId);
                     recipeRepository.deleteById(recipeId);
+                    resourceVersionService.touch(ResourceVersionService.recipeKey(recipeId),
+                            ResourceVersionService.userKey(recipe.getUser().getIdUser()));
+                    resourceVersionService.forgetRecipe(recipeId);
+                    trendingService.recipeChanged(recipeId);
+                    ingredientIndex.remove(recipeId);
+                    similarRecipeIndex.recipeRemoved(recipeId);
                 }, () -> {
                     throw new IllegalArgumentException("Recipe not found");
                 });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RecipeDTO> searchRecipes(String title, String ingredient, String category) {
         Specification<Recipe> spec = Specification
                 .where(RecipeSpecification.hasTitle(title))
@@ -190,6 +255,7 @@ public class RecipeServiceImpl implements RecipeService {
 
     // récupérer des recettes avec les informations de l'utilisateur propriétaire
     @Override
+    @Transactional(readOnly = true)
     public List<RecipeDTO> findRecipesWithUserInfo(UUID userId) {
         List<Recipe> recipes = recipeRepository.findAllByUserIdUser(userId);
         return recipes.stream()
@@ -202,6 +268,7 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<RecipeDTO> findRecipesExcludingUser(UUID userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedDate").descending());
         Page<Recipe> recipes = recipeRepository.findAllByUserIdUserNotWithUser(userId, pageable);
@@ -210,6 +277,7 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<RecipeDTO> searchRecipesExcludingUser(UUID userId, String query, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedDate").descending());
         Page<Recipe> recipes = recipeRepository.findByUserIdUserNotAndTitleOrIngredientsContainingIgnoreCase(userId, query, pageable);
@@ -217,6 +285,7 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<RecipeDTO> findRecipesExcludingUserByCategory(UUID userId, String category, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedDate").descending());
         if (category == null || category.equals("All")) {
@@ -227,6 +296,7 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<RecipeDTO> searchRecipesExcludingUserByCategory(UUID userId, String query, String category, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedDate").descending());
         if (category == null || category.equals("All")) {
@@ -240,6 +310,7 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public RecipeDTO getRandomRecipeExcludingUser(UUID userId) {
         List<Recipe> recipes = recipeRepository.findAllByUserIdUserNot(userId);
         if (recipes.isEmpty()) throw new IllegalStateException("No recipes available");
@@ -1,7 +1,7 @@
 
 package org.schoolproject.backend.services.impl;
 
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import org.schoolproject.backend.dto.RecipeDTO;
 import org.schoolproject.backend.entities.SavedRecipe;
 import org.schoolproject.backend.mappers.RecipeMapper;
@@ -9,14 +9,21 @@ import org.schoolproject.backend.repositories.RecipeRepository;
 import org.schoolproject.backend.repositories.SavedRecipeRepository;
 import org.schoolproject.backend.repositories.UserRepository;
 import org.schoolproject.backend.services.SavedRecipeService;
+import org.schoolproject.backend.services.TrendingService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -26,60 +33,82 @@ public class SavedRecipeServiceImpl implements SavedRecipeService {
     private final UserRepository userRepository;
     private final RecipeRepository recipeRepository;
     private final RecipeMapper recipeMapper;
+    private final TrendingService trendingService;
+
+    @Value("${bulk-delete.batch-size:1000}")
+    private int deleteBatchSize;
+
+    private static final int MAX_STATUS_IDS = 500;
 
     public SavedRecipeServiceImpl(SavedRecipeRepository savedRecipeRepository, UserRepository userRepository,
-                                  RecipeRepository recipeRepository, RecipeMapper recipeMapper) {
+                                  RecipeRepository recipeRepository, RecipeMapper recipeMapper, TrendingService trendingService) {
         this.savedRecipeRepository = savedRecipeRepository;
         this.userRepository = userRepository;
         this.recipeRepository = recipeRepository;
         this.recipeMapper = recipeMapper;
+        this.trendingService = trendingService;
     }
 
     @Override
     @Transactional
-    public SavedRecipe toggleSavedRecipe(UUID userId, int recipeId) {
-        Optional<SavedRecipe> existingSavedRecipe = savedRecipeRepository.findByUserIdUserAndRecipeIdRecipe(userId, recipeId);
-        if (existingSavedRecipe.isPresent()) {
-            savedRecipeRepository.delete(existingSavedRecipe.get());
-            return null;
-        } else {
-            return userRepository.findById(userId)
-                    .flatMap(user -> recipeRepository.findById(recipeId)
-                            .map(recipe -> {
-                                SavedRecipe savedRecipe = new SavedRecipe();
-                                savedRecipe.setUser(user);
-                                savedRecipe.setRecipe(recipe);
-                                return savedRecipeRepository.save(savedRecipe);
-                            }))
-                    .orElseThrow(() -> new IllegalArgumentException("User or Recipe not found"));
+    public boolean toggleSavedRecipe(UUID userId, int recipeId) {
+        int result = savedRecipeRepository.toggle(userId, recipeId);
+        if (result == 0) {
+            // Rien n'a changé : entités inexistantes, ou enregistrement concurrent (double-clic) déjà effectué
+            if (!userRepository.existsById(userId) || !recipeRepository.existsById(recipeId)) {
+                throw new IllegalArgumentException("User or Recipe not found");
+            }
+            return true;
         }
+        trendingService.recordInteraction(recipeId, TrendingService.Interaction.SAVE, result);
+        return result > 0;
     }
 
     @Override
     @Transactional
     public void removeSavedRecipe(UUID userId, int recipeId) {
-        savedRecipeRepository.findByUserIdUserAndRecipeIdRecipe(userId, recipeId)
-                .ifPresentOrElse(savedRecipeRepository::delete,
-                        () -> { throw new IllegalArgumentException("Saved recipe not found"); });
+        if (savedRecipeRepository.deleteByUserIdUserAndRecipeIdRecipe(userId, recipeId) == 0) {
+            throw new IllegalArgumentException("Saved recipe not found");
+        }
+        trendingService.recordInteraction(recipeId, TrendingService.Interaction.SAVE, -1);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<SavedRecipe> getSavedRecipes(UUID userId) {
         return savedRecipeRepository.findAllByUserIdUser(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean isSavedRecipe(UUID userId, int recipeId) {
         return savedRecipeRepository.existsByUserIdUserAndRecipeIdRecipe(userId, recipeId);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public Map<Integer, Boolean> getSavedStatuses(UUID userId, Collection<Integer> recipeIds) {
+        Set<Integer> ids = new LinkedHashSet<>(recipeIds);
+        if (ids.size() > MAX_STATUS_IDS) {
+            throw new IllegalArgumentException("Too many recipe ids (max " + MAX_STATUS_IDS + ")");
+        }
+        Set<Integer> saved = ids.isEmpty() ? Set.of() : new HashSet<>(savedRecipeRepository.findSavedRecipeIds(userId, ids));
+        Map<Integer, Boolean> statuses = new LinkedHashMap<>();
+        ids.forEach(id -> statuses.put(id, saved.contains(id)));
+        return statuses;
+    }
+
+    @Override
     public void clearAllSavedRecipes(UUID userId) {
-        savedRecipeRepository.deleteAllByUserIdUser(userId);
+        // Pas de transaction englobante : chaque lot est validé séparément
+        int deleted;
+        do {
+            deleted = savedRecipeRepository.deleteBatchByUserIdUser(userId, deleteBatchSize);
+        } while (deleted == deleteBatchSize);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<RecipeDTO> getSavedRecipesPaged(UUID userId, int page, int size, String category) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("dateSaved").descending());
         Page<SavedRecipe> savedRecipesPage;
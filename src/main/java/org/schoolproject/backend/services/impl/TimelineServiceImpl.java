@@ -0,0 +1,233 @@
+package org.schoolproject.backend.services.impl;
+
+import org.schoolproject.backend.dto.CursorPageDTO;
+import org.schoolproject.backend.dto.RecipeDTO;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.mappers.RecipeMapper;
+import org.schoolproject.backend.repositories.FollowerRepository;
+import org.schoolproject.backend.repositories.RecipeRepository;
+import org.schoolproject.backend.repositories.TimelineEntryRepository;
+import org.schoolproject.backend.repositories.UserStatsRepository;
+import org.schoolproject.backend.services.ProfileStatsService;
+import org.schoolproject.backend.services.TimelineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Fil d'accueil en fan-out à l'écriture : une recette publiée est recopiée dans timeline_entries
+ * pour chaque abonné de l'auteur, par lots, après le commit. Au-delà de timeline.fanout.max-followers abonnés,
+ * l'auteur n'est plus diffusé : ses recettes sont lues à la demande et fusionnées avec le fil matérialisé.
+ * Un lot en échec est rejoué (timeline.fanout.max-attempts, attente croissante). Quand un désabonnement ramène
+ * l'auteur au seuil, ses dernières recettes (dont celles publiées pendant la lecture à la demande) sont recopiées
+ * chez tous ses abonnés.
+ */
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineServiceImpl.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private static final Comparator<Recipe> NEWEST_FIRST = Comparator.comparing(Recipe::getCreationDate)
+            .thenComparingInt(Recipe::getIdRecipe)
+            .reversed();
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final FollowerRepository followerRepository;
+    private final RecipeRepository recipeRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final RecipeMapper recipeMapper;
+    private final ProfileStatsService profileStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${timeline.fanout.max-followers:10000}")
+    private long maxFanOutFollowers;
+
+    @Value("${timeline.fanout.batch-size:1000}")
+    private int fanOutBatchSize;
+
+    @Value("${timeline.fanout.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${timeline.fanout.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${timeline.backfill-size:20}")
+    private int backfillSize;
+
+    public TimelineServiceImpl(TimelineEntryRepository timelineEntryRepository, FollowerRepository followerRepository,
+                               RecipeRepository recipeRepository, UserStatsRepository userStatsRepository,
+                               RecipeMapper recipeMapper, ProfileStatsService profileStatsService,
+                               ApplicationEventPublisher eventPublisher) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.followerRepository = followerRepository;
+        this.recipeRepository = recipeRepository;
+        this.userStatsRepository = userStatsRepository;
+        this.recipeMapper = recipeMapper;
+        this.profileStatsService = profileStatsService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<RecipeDTO> getHomeTimeline(UUID userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1);
+        CursorPageDTO.Cursor after = cursor == null || cursor.isBlank() ? null : CursorPageDTO.decodeCursor(cursor);
+
+        List<Recipe> recipes = new ArrayList<>(after == null
+                ? timelineEntryRepository.findTimeline(userId, limit)
+                : timelineEntryRepository.findTimelineBefore(userId, after.at(), (int) after.id(), limit));
+
+        // Comptes trop suivis pour être diffusés : lus à la demande, puis fusionnés
+        List<UUID> pulledAuthors = followerRepository.findFollowedIdsWithFollowersAbove(userId, maxFanOutFollowers);
+        if (!pulledAuthors.isEmpty()) {
+            recipes.addAll(after == null
+                    ? recipeRepository.findLatestByAuthors(pulledAuthors, limit)
+                    : recipeRepository.findLatestByAuthorsBefore(pulledAuthors, after.at(), (int) after.id(), limit));
+            // Une recette diffusée avant que l'auteur ne dépasse le seuil peut figurer des deux côtés
+            Set<Integer> seen = new HashSet<>();
+            recipes.removeIf(recipe -> !seen.add(recipe.getIdRecipe()));
+            recipes.sort(NEWEST_FIRST);
+        }
+
+        boolean hasMore = recipes.size() > pageSize;
+        List<Recipe> page = hasMore ? recipes.subList(0, pageSize) : recipes;
+        String nextCursor = null;
+        if (hasMore) {
+            Recipe last = page.get(page.size() - 1);
+            nextCursor = CursorPageDTO.encodeCursor(last.getCreationDate(), last.getIdRecipe());
+        }
+        return new CursorPageDTO<>(page.stream().map(recipeMapper::toDto).toList(), nextCursor);
+    }
+
+    @Override
+    public void recipePublished(UUID authorId, int recipeId, LocalDateTime createdAt) {
+        eventPublisher.publishEvent(new RecipePublished(authorId, recipeId, createdAt));
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipePublished(RecipePublished event) {
+        long followers = profileStatsService.getProfileStats(event.authorId()).getFollowers();
+        if (followers > maxFanOutFollowers) {
+            logger.debug("Recette {} non diffusée : {} abonnés, lue à la demande", event.recipeId(), followers);
+            return;
+        }
+        int batches = inBatches("recette " + event.recipeId(),
+                lastFollower -> timelineEntryRepository.fanOutBatch(event.authorId(), event.recipeId(),
+                        event.createdAt(), lastFollower, fanOutBatchSize),
+                // Recette supprimée entre-temps (clé étrangère) : inutile de rejouer
+                () -> recipeRepository.existsById(event.recipeId()));
+        if (batches >= 0) {
+            logger.debug("Recette {} diffusée à {} abonnés en {} lots", event.recipeId(), followers, batches);
+        }
+    }
+
+    @Override
+    public void recipesPublished(UUID authorId, List<Integer> recipeIds) {
+        eventPublisher.publishEvent(new RecipesPublished(authorId, List.copyOf(recipeIds)));
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipesPublished(RecipesPublished event) {
+        long followers = profileStatsService.getProfileStats(event.authorId()).getFollowers();
+        if (followers > maxFanOutFollowers) {
+            logger.debug("{} recettes non diffusées : {} abonnés, lues à la demande", event.recipeIds().size(), followers);
+            return;
+        }
+        int batches = inBatches(event.recipeIds().size() + " recettes importées",
+                lastFollower -> timelineEntryRepository.fanOutRecipesBatch(event.authorId(), event.recipeIds(),
+                        lastFollower, fanOutBatchSize),
+                // Les recettes supprimées sortent d'elles-mêmes de la requête
+                () -> true);
+        if (batches >= 0) {
+            logger.debug("{} recettes diffusées à {} abonnés en {} lots", event.recipeIds().size(), followers, batches);
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFanOutResumed(FanOutResumed event) {
+        int batches = inBatches("rattrapage de l'auteur " + event.authorId(),
+                lastFollower -> timelineEntryRepository.backfillFollowersBatch(event.authorId(), lastFollower,
+                        fanOutBatchSize, backfillSize),
+                () -> true);
+        if (batches >= 0) {
+            logger.info("Auteur {} repassé sous le seuil de diffusion : fil de ses abonnés complété en {} lots",
+                    event.authorId(), batches);
+        }
+    }
+
+    // Parcourt les abonnés par lots ; un lot en échec est rejoué depuis le dernier abonné servi.
+    // Retourne le nombre de lots, -1 si la diffusion a été abandonnée
+    private int inBatches(String label, UnaryOperator<UUID> batch, BooleanSupplier stillRelevant) {
+        UUID lastFollower = FIRST_ID;
+        int batches = 0;
+        int failures = 0;
+        while (true) {
+            try {
+                UUID next = batch.apply(lastFollower);
+                if (next == null) {
+                    return batches;
+                }
+                lastFollower = next;
+                batches++;
+                failures = 0;
+            } catch (RuntimeException e) {
+                if (++failures >= maxAttempts || !stillRelevant.getAsBoolean()) {
+                    logger.error("Diffusion interrompue ({}) après {} lots : {}", label, batches, e.getMessage());
+                    return -1;
+                }
+                logger.warn("Lot de diffusion en échec ({}), tentative {}/{} : {}", label, failures, maxAttempts, e.getMessage());
+                if (!pause(retryBackoffMs * failures)) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void followed(UUID followerId, UUID followedId) {
+        timelineEntryRepository.backfill(followerId, followedId, backfillSize);
+    }
+
+    @Override
+    public void unfollowed(UUID followerId, UUID followedId) {
+        timelineEntryRepository.deleteByUserIdAndAuthorId(followerId, followedId);
+        // Compteur déjà décrémenté par cette transaction : égal au seuil => l'auteur vient de repasser dessous
+        if (userStatsRepository.findFollowerCount(followedId).orElse(-1L) == maxFanOutFollowers) {
+            eventPublisher.publishEvent(new FanOutResumed(followedId));
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.schoolproject.backend.services.impl;
+
+import jakarta.transaction.Transactional;
+import org.schoolproject.backend.dto.RecipeDTO;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.entities.TrendingScore;
+import org.schoolproject.backend.mappers.RecipeMapper;
+import org.schoolproject.backend.repositories.RecipeRepository;
+import org.schoolproject.backend.repositories.TrendingScoreRepository;
+import org.schoolproject.backend.services.TrendingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Tendances à décroissance exponentielle, entièrement en mémoire.
+ * Décroissance « vers l'avant » : une interaction à l'instant t vaut poids × 2^((t - repère) / demi-vie),
+ * le score d'une recette n'est jamais réécrit par le temps qui passe et l'ordre reste celui des scores décroissants.
+ * Le repère est avancé de temps en temps pour éviter le débordement des exposants.
+ * Le top-K (global et par catégorie) est recalculé périodiquement à l'aide de tas-min bornés,
+ * puis publié comme une liste immuable de RecipeDTO : une lecture ne touche ni la base ni le mapper.
+ */
+@Service
+public class TrendingServiceImpl implements TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingServiceImpl.class);
+
+    private static final String ALL = "All";
+    private static final double MIN_SCORE = 0.05;      // en dessous (valeur décroissante actuelle), la recette est oubliée
+    private static final double MAX_EXPONENT = 8;      // repère avancé après 8 demi-vies
+    private static final int CATEGORY_BATCH = 1000;
+
+    private final RecipeRepository recipeRepository;
+    private final TrendingScoreRepository trendingScoreRepository;
+    private final RecipeMapper recipeMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Integer, Double> scores = new ConcurrentHashMap<>();
+    private final Map<Integer, String> categories = new ConcurrentHashMap<>();
+    // Lecture : enregistrement d'une interaction ; écriture : changement de repère
+    private final ReadWriteLock landmarkLock = new ReentrantReadWriteLock();
+    private volatile long landmark = System.currentTimeMillis();
+    private volatile Map<String, List<RecipeDTO>> top = Map.of();
+
+    @Value("${trending.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${trending.top-k:100}")
+    private int topK;
+
+    public TrendingServiceImpl(RecipeRepository recipeRepository, TrendingScoreRepository trendingScoreRepository,
+                               RecipeMapper recipeMapper, ApplicationEventPublisher eventPublisher) {
+        this.recipeRepository = recipeRepository;
+        this.trendingScoreRepository = trendingScoreRepository;
+        this.recipeMapper = recipeMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public List<RecipeDTO> getTrending(String category, int limit) {
+        String key = category == null || category.isBlank() ? ALL : category;
+        List<RecipeDTO> recipes = top.getOrDefault(key, List.of());
+        return recipes.subList(0, Math.max(0, Math.min(limit, recipes.size())));
+    }
+
+    @Override
+    public void recordInteraction(int recipeId, Interaction interaction, int delta) {
+        eventPublisher.publishEvent(new RecipeInteraction(recipeId, interaction, delta));
+    }
+
+    @Override
+    public void recipeChanged(int recipeId) {
+        categories.remove(recipeId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInteraction(RecipeInteraction event) {
+        double weight = weight(event.interaction()) * event.delta();
+        landmarkLock.readLock().lock();
+        try {
+            double boost = weight * Math.pow(2, (System.currentTimeMillis() - landmark) / halfLifeMs());
+            scores.compute(event.recipeId(), (id, current) -> {
+                double score = (current == null ? 0 : current) + boost;
+                return score > 0 ? score : null;
+            });
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recalcule les listes publiées : repère, catégories manquantes, élagage, puis top-K par tas-min.
+     */
+    @Scheduled(fixedDelayString = "${trending.refresh-interval-ms:5000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        rebaseIfNeeded(now);
+        double decay = Math.pow(2, -(now - landmark) / halfLifeMs());
+        scores.values().removeIf(score -> score * decay < MIN_SCORE);
+        loadMissingCategories();
+
+        Map<String, PriorityQueue<Map.Entry<Integer, Double>>> heaps = new HashMap<>();
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            String category = categories.get(entry.getKey());
+            if (category == null) {
+                continue;
+            }
+            offer(heaps.computeIfAbsent(ALL, k -> newHeap()), entry);
+            offer(heaps.computeIfAbsent(category, k -> newHeap()), entry);
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        heaps.values().forEach(heap -> heap.forEach(entry -> ids.add(entry.getKey())));
+        Map<Integer, RecipeDTO> recipes = ids.isEmpty() ? Map.of() : recipeRepository.findAllWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Recipe::getIdRecipe, recipeMapper::toDto));
+
+        Map<String, List<RecipeDTO>> published = new HashMap<>();
+        heaps.forEach((category, heap) -> published.put(category, heap.stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                .map(entry -> recipes.get(entry.getKey()))
+                .filter(Objects::nonNull)
+                .toList()));
+        top = Map.copyOf(published);
+    }
+
+    /**
+     * Sauvegarde le top courant (union des listes publiées) avec les scores ramenés à l'instant présent.
+     */
+    @Scheduled(fixedDelayString = "${trending.snapshot-interval-ms:300000}",
+            initialDelayString = "${trending.snapshot-interval-ms:300000}")
+    @Transactional
+    public void snapshot() {
+        long now = System.currentTimeMillis();
+        double decay = Math.pow(2, -(now - landmark) / halfLifeMs());
+        LocalDateTime computedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault());
+        Map<Integer, TrendingScore> rows = new HashMap<>();
+        top.values().forEach(recipes -> recipes.forEach(recipe -> {
+            Double score = scores.get(recipe.getId());
+            if (score != null) {
+                rows.putIfAbsent(recipe.getId(), new TrendingScore(recipe.getId(), score * decay, recipe.getCategory(), computedAt));
+            }
+        }));
+        trendingScoreRepository.deleteAllInBatch();
+        trendingScoreRepository.saveAll(rows.values());
+        logger.debug("Instantané des tendances : {} recettes", rows.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long now = System.currentTimeMillis();
+        landmarkLock.writeLock().lock();
+        try {
+            landmark = now;
+            for (TrendingScore row : trendingScoreRepository.findAll()) {
+                long age = now - row.getComputedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                scores.merge(row.getRecipeId(), row.getScore() * Math.pow(2, -age / halfLifeMs()), Double::sum);
+                if (row.getCategory() != null) {
+                    categories.put(row.getRecipeId(), row.getCategory());
+                }
+            }
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+        refresh();
+        logger.info("Tendances restaurées : {} recettes", scores.size());
+    }
+
+    private void rebaseIfNeeded(long now) {
+        if ((now - landmark) / halfLifeMs() < MAX_EXPONENT) {
+            return;
+        }
+        landmarkLock.writeLock().lock();
+        try {
+            double factor = Math.pow(2, -(now - landmark) / halfLifeMs());
+            scores.replaceAll((id, score) -> score * factor);
+            landmark = now;
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+    }
+
+    // Catégories des recettes récemment apparues ; une recette introuvable a été supprimée
+    private void loadMissingCategories() {
+        List<Integer> missing = scores.keySet().stream().filter(id -> !categories.containsKey(id)).toList();
+        for (int from = 0; from < missing.size(); from += CATEGORY_BATCH) {
+            List<Integer> batch = missing.subList(from, Math.min(from + CATEGORY_BATCH, missing.size()));
+            Map<Integer, String> found = recipeRepository.findCategories(batch).stream()
+                    .collect(Collectors.toMap(row -> (Integer) row[0], row -> (String) row[1]));
+            for (Integer id : batch) {
+                String category = found.get(id);
+                if (category == null) {
+                    scores.remove(id);
+                } else {
+                    categories.put(id, category);
+                }
+            }
+        }
+        categories.keySet().retainAll(scores.keySet());
+    }
+
+    private PriorityQueue<Map.Entry<Integer, Double>> newHeap() {
+        return new PriorityQueue<>(topK + 1, Map.Entry.comparingByValue());
+    }
+
+    // Tas-min borné : la racine est le plus faible des K meilleurs, remplacée si l'entrée fait mieux
+    private void offer(PriorityQueue<Map.Entry<Integer, Double>> heap, Map.Entry<Integer, Double> entry) {
+        if (heap.size() < topK) {
+            heap.add(Map.entry(entry.getKey(), entry.getValue()));
+        } else if (entry.getValue() > heap.peek().getValue()) {
+            heap.poll();
+            heap.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private double halfLifeMs() {
+        return halfLifeHours * 3_600_000;
+    }
+
+    private static double weight(Interaction interaction) {
+        return switch (interaction) {
+            case LIKE -> 1.0;
+            case SAVE -> 2.0;
+            case COMMENT -> 3.0;
+        };
+    }
+}
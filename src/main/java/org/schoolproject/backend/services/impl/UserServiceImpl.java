@@ -1,33 +1,82 @@
 package org.schoolproject.backend.services.impl;
 
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.schoolproject.backend.config.CacheConfig;
 import org.schoolproject.backend.config.JwtUtil;
 import org.schoolproject.backend.dto.UserDTO;
 import org.schoolproject.backend.entities.User;
 import org.schoolproject.backend.mappers.RecipeMapper;
 import org.schoolproject.backend.mappers.UserMapper;
+import org.schoolproject.backend.repositories.FollowerRepository;
 import org.schoolproject.backend.repositories.UserRepository;
+import org.schoolproject.backend.services.AccountDeletionService;
 import org.schoolproject.backend.services.FileStorageService;
+import org.schoolproject.backend.services.RefreshTokenService;
+import org.schoolproject.backend.services.ResourceVersionService;
+import org.schoolproject.backend.services.SingleFlight;
+import org.schoolproject.backend.services.UserSearchIndex;
 import org.schoolproject.backend.services.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final FileStorageService fileStorageService;
     private final UserMapper userMapper;
     private final RecipeMapper recipeMapper;
     private final JwtUtil jwtUtil;
+    private final FollowerRepository followerRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final AccountDeletionService accountDeletionService;
+    private final UserSearchIndex userSearchIndex;
+    private final RefreshTokenService refreshTokenService;
+    // Lectures concurrentes d'un même profil : un seul chargement, gardé quelques centaines de millisecondes
+    private final SingleFlight<UUID, Optional<UserDTO>> profileLookups;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           FileStorageService fileStorageService, UserMapper userMapper, RecipeMapper recipeMapper,
+                           JwtUtil jwtUtil, FollowerRepository followerRepository,
+                           ResourceVersionService resourceVersionService, AccountDeletionService accountDeletionService,
+                           UserSearchIndex userSearchIndex, RefreshTokenService refreshTokenService,
+                           MeterRegistry meterRegistry,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${single-flight.micro-cache-ms:200}") long microCacheMs) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.fileStorageService = fileStorageService;
+        this.userMapper = userMapper;
+        this.recipeMapper = recipeMapper;
+        this.jwtUtil = jwtUtil;
+        this.followerRepository = followerRepository;
+        this.resourceVersionService = resourceVersionService;
+        this.accountDeletionService = accountDeletionService;
+        this.userSearchIndex = userSearchIndex;
+        this.refreshTokenService = refreshTokenService;
+        this.profileLookups = new SingleFlight<>("userProfile", Duration.ofMillis(microCacheMs), meterRegistry);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
 
     @Override
     @Transactional
@@ -44,10 +93,13 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
         user.setProfilePic(imageUrl);
 
-        return userMapper.toDto(userRepository.save(user));
+        User savedUser = userRepository.save(user);
+        userSearchIndex.index(savedUser);
+        return userMapper.toDto(savedUser);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDTO getUserProfileFromToken(String token) {
         if (!jwtUtil.validateToken(token)) {
             throw new SecurityException("Invalid token");
@@ -63,27 +115,35 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<UserDTO> findUserById(UUID userId) {
         return userRepository.findById(userId).map(userMapper::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<UserDTO> findUserByEmail(String email) {
         return userRepository.findByEmail(email).map(userMapper::toDto);
     }
 
     @Override
-    public List<UserDTO> findAllUsers() {
-        return userRepository.findAll().stream().map(userMapper::toDto).toList();
+    @Transactional(readOnly = true)
+    public Page<UserDTO> findAllUsers(int page, int size) {
+        // Liste complète : export NDJSON (ExportService)
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)),
+                Sort.by("idUser"));
+        return userRepository.findAll(pageable).map(userMapper::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsUserByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RECIPES, allEntries = true) // les RecipeDTO embarquent l'auteur
     public UserDTO updateUser(UUID userId, UserDTO updatedUserDTO, MultipartFile newProfileImage, String token) {
         // Vérifier le token pour s'assurer que l'utilisateur modifie ses propres données
         if (!jwtUtil.validateToken(token)) {
@@ -124,22 +184,26 @@ public class UserServiceImpl implements UserService {
             }
         }
 
-        return userMapper.toDto(userRepository.save(existingUser));
+        touchUserViews(userId);
+        profileLookups.forget(userId);
+        User savedUser = userRepository.save(existingUser);
+        userSearchIndex.index(savedUser);
+        return userMapper.toDto(savedUser);
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RECIPES, allEntries = true)
     public void deleteUser(UUID userId) {
-        userRepository.findById(userId).ifPresentOrElse(user -> {
-            if (user.getProfilePic() != null) {
-                fileStorageService.deleteFile(user.getProfilePic());
-            }
-            userRepository.deleteById(userId);
-        }, () -> {
-            throw new IllegalArgumentException("User not found");
-        });
+        profileLookups.forget(userId);
+        // Pierre tombale immédiate ; données et fichiers supprimés ensuite par lots en arrière-plan
+        accountDeletionService.requestDeletion(userId);
+        refreshTokenService.revokeAllForUser(userId);
+        userSearchIndex.remove(userId);
+        touchUserViews(userId);
     }
 
+    // Sans transaction englobante : aucune connexion n'est retenue pendant le hachage
     @Override
     public boolean verifyPassword(UUID id, String password) {
         return userRepository.findById(id)
@@ -147,8 +211,8 @@ public class UserServiceImpl implements UserService {
                 .orElse(false);
     }
 
+    // Sans transaction englobante : les deux hachages ne retiennent pas de connexion, seule la sauvegarde est transactionnelle
     @Override
-    @Transactional
     public void changePassword(UUID id, String currentPassword, String newPassword, String token) {
         // Vérifier le token
         if (!jwtUtil.validateToken(token)) {
@@ -176,13 +240,26 @@ public class UserServiceImpl implements UserService {
         // Mettre à jour le mot de passe
         existingUser.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(existingUser);
+        // Les autres sessions doivent se reconnecter avec le nouveau mot de passe
+        refreshTokenService.revokeAllForUser(id);
     }
 
     @Override
-    @Transactional
     public Optional<UserDTO> getUserProfile(UUID userId) {
-        return userRepository.findById(userId)
-                .map(this::toDtoWithRecipes);
+        return profileLookups.execute(userId, () -> readOnlyTransaction.execute(status -> userRepository.findById(userId)
+                .map(this::toDtoWithRecipes)));
+    }
+
+    /**
+     * Le profil d'un utilisateur apparaît dans sa page et dans les listes d'abonnés / abonnements des autres :
+     * toutes ces vues changent de version.
+     */
+    private void touchUserViews(UUID userId) {
+        resourceVersionService.touch(ResourceVersionService.userKey(userId));
+        followerRepository.findFollowedIdsByFollowerId(userId)
+                .forEach(followedId -> resourceVersionService.touch(ResourceVersionService.followersKey(followedId)));
+        followerRepository.findFollowerIdsByFollowedId(userId)
+                .forEach(followerId -> resourceVersionService.touch(ResourceVersionService.followingKey(followerId)));
     }
 
     private UserDTO toDtoWithRecipes(User user) {
@@ -5,6 +5,7 @@ import org.schoolproject.backend.entities.VerificationCode;
 import org.schoolproject.backend.repositories.VerificationCodeRepository;
 import org.schoolproject.backend.services.EmailService;
 import org.schoolproject.backend.services.VerificationCodeService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +24,9 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
     private static final int CODE_LENGTH = 6;
     private static final int EXPIRY_MINUTES = 10;
 
+    @Value("${bulk-delete.batch-size:1000}")
+    private int deleteBatchSize;
+
     /**
      * @param email
      */
@@ -92,9 +96,13 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
      */
     @Override
     @Scheduled(fixedRate = 60*60*1000)    // toutes les heures
-    @Transactional
     public void cleanExpiredCode() {
-        verificationCodeRepository.deleteByExpiryDateBefore(LocalDateTime.now());
+        // Par lots validés séparément, pour ne pas verrouiller la table pendant toute la purge
+        LocalDateTime now = LocalDateTime.now();
+        int deleted;
+        do {
+            deleted = verificationCodeRepository.deleteBatchByExpiryDateBefore(now, deleteBatchSize);
+        } while (deleted == deleteBatchSize);
     }
 
     /*
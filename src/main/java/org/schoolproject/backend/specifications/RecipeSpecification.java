@@ -15,7 +15,7 @@ public class RecipeSpecification {
     }
     public static Specification<Recipe> hasIngredient(String ingredient) {
         return (root, query, criteriaBuilder) ->
-                ingredient == null ? null : criteriaBuilder.like(criteriaBuilder.lower(root.get("ingredient")), "%" + ingredient.toLowerCase() + "%");
+                ingredient == null ? null : criteriaBuilder.like(criteriaBuilder.lower(root.get("ingredients")), "%" + ingredient.toLowerCase() + "%");
     }
     public static Specification<Recipe> hasCategory (String category ) {
         return (root, query, criteriaBuilder) ->
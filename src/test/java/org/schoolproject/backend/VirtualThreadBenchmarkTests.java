@@ -0,0 +1,126 @@
+package org.schoolproject.backend;
+
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compare le débit d'un pool de threads plateforme (taille Tomcat par défaut) à celui des threads virtuels
+ * sous une charge bloquante (JDBC, SMTP, disque simulés par un sleep), puis vérifie que l'épinglage
+ * dans un bloc `synchronized` est bien détecté par JFR.
+ * Hors de la suite normale : ne s'exécute qu'avec -Dbenchmark=true.
+ * mvn -Pjava21 test -Dtest=VirtualThreadBenchmarkTests -Dbenchmark=true
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadBenchmarkTests {
+
+    private static final int TASKS = 5_000;
+    private static final long BLOCKING_MS = 50;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadBenchmarkTests.class);
+    // Moniteur partagé par toutes les tâches, comme un verrou de service réel
+    private static final Object SHARED_LOCK = new Object();
+
+    @Test
+    void virtualThreadsOutperformPlatformPoolUnderBlockingLoad() throws Exception {
+        ThreadPoolTaskExecutor platformPool = new ThreadPoolTaskExecutor();
+        platformPool.setCorePoolSize(TOMCAT_MAX_THREADS);
+        platformPool.setMaxPoolSize(TOMCAT_MAX_THREADS);
+        platformPool.setThreadNamePrefix("platform-");
+        platformPool.initialize();
+
+        SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("virtual-");
+        virtualExecutor.setVirtualThreads(true);
+
+        try {
+            double platform = throughput(platformPool, VirtualThreadBenchmarkTests::blockingCall);
+            double virtual = throughput(virtualExecutor, VirtualThreadBenchmarkTests::blockingCall);
+            logger.info("Débit sous charge bloquante ({} tâches de {} ms) : plateforme({}) = {} ops/s, virtuels = {} ops/s",
+                    TASKS, BLOCKING_MS, TOMCAT_MAX_THREADS, Math.round(platform), Math.round(virtual));
+            assertTrue(virtual > platform, "Les threads virtuels devraient offrir un meilleur débit");
+        } finally {
+            platformPool.shutdown();
+        }
+    }
+
+    @Test
+    void blockingInsideSynchronizedPinsVirtualThreads() throws Exception {
+        SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("virtual-");
+        virtualExecutor.setVirtualThreads(true);
+
+        assertEquals(0, pinnedEvents(virtualExecutor, VirtualThreadBenchmarkTests::blockingCall),
+                "Un appel bloquant hors synchronized ne doit pas épingler");
+        assertTrue(pinnedEvents(virtualExecutor, VirtualThreadBenchmarkTests::blockingCallInSynchronized) > 0,
+                "Un appel bloquant dans synchronized doit être signalé par jdk.VirtualThreadPinned");
+    }
+
+    private static double throughput(Executor executor, Runnable task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES));
+        return TASKS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private static int pinnedEvents(Executor executor, Runnable task) throws InterruptedException {
+        AtomicInteger pinned = new AtomicInteger();
+        try (RecordingStream stream = new RecordingStream()) {
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(10));
+            stream.onEvent("jdk.VirtualThreadPinned", event -> pinned.incrementAndGet());
+            stream.startAsync();
+
+            CountDownLatch done = new CountDownLatch(10);
+            for (int i = 0; i < 10; i++) {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(1, TimeUnit.MINUTES));
+            // laisser le flux JFR publier les derniers événements
+            Thread.sleep(1_500);
+        }
+        return pinned.get();
+    }
+
+    private static void blockingCall() {
+        try {
+            Thread.sleep(BLOCKING_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void blockingCallInSynchronized() {
+        synchronized (SHARED_LOCK) {
+            blockingCall();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.schoolproject.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.schoolproject.backend.dto.CustomUserDetails;
+import org.schoolproject.backend.entities.User;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Routage des transactions en lecture seule vers les réplicas, fenêtre de cohérence après écriture
+ * et fermeture des pools.
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private static final long STICKY_MS = 200;
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica0 = mock(DataSource.class);
+    private final DataSource replica1 = mock(DataSource.class);
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyConnectionGoesToReplica() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(List.of(new ReplicaRoutingDataSource.Replica("replica-0", replica0)));
+        Connection replicaConnection = mock(Connection.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(replica0.getConnection()).thenReturn(replicaConnection);
+        // Lue une fois par le proxy pour connaître les réglages par défaut des connexions
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(routing);
+
+        // Comme le gestionnaire de transactions pour @Transactional(readOnly = true)
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.createStatement();
+        }
+
+        verify(replicaConnection).createStatement();
+        verify(primaryConnection, never()).createStatement();
+    }
+
+    @Test
+    void readWriteConnectionGoesToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(List.of(new ReplicaRoutingDataSource.Replica("replica-0", replica0)));
+        Connection primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(routing);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement();
+        }
+
+        verify(primaryConnection).createStatement();
+        verify(replica0, never()).getConnection();
+    }
+
+    @Test
+    void spreadsReadsOverHealthyReplicas() {
+        ReplicaRoutingDataSource routing = routing(List.of(
+                new ReplicaRoutingDataSource.Replica("replica-0", replica0),
+                new ReplicaRoutingDataSource.Replica("replica-1", replica1)));
+
+        assertThat(List.of(routing.determineCurrentLookupKey(), routing.determineCurrentLookupKey(),
+                routing.determineCurrentLookupKey())).containsExactly("replica-0", "replica-1", "replica-0");
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(List.of(new ReplicaRoutingDataSource.Replica("replica-0", replica0)));
+        when(replica0.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        routing.checkReplicas();
+
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void writerReadsFromPrimaryDuringStickyWindow() throws InterruptedException {
+        ReplicaRoutingDataSource routing = routing(List.of(new ReplicaRoutingDataSource.Replica("replica-0", replica0)));
+        UUID writer = authenticate();
+
+        routing.markWrite(writer);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        // Un autre utilisateur n'est pas concerné
+        authenticate();
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+
+        Thread.sleep(STICKY_MS * 2);
+        authenticate(writer);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+    }
+
+    @Test
+    void closeShutsDownEveryPool() {
+        HikariDataSource primaryPool = mock(HikariDataSource.class);
+        HikariDataSource replicaPool = mock(HikariDataSource.class);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryPool,
+                List.of(new ReplicaRoutingDataSource.Replica("replica-0", replicaPool)), 1000, STICKY_MS);
+
+        routing.close();
+
+        verify(primaryPool).close();
+        verify(replicaPool).close();
+    }
+
+    private ReplicaRoutingDataSource routing(List<ReplicaRoutingDataSource.Replica> replicas) {
+        return new ReplicaRoutingDataSource(primary, replicas, 1000, STICKY_MS);
+    }
+
+    private static UUID authenticate() {
+        return authenticate(UUID.randomUUID());
+    }
+
+    private static UUID authenticate(UUID userId) {
+        CustomUserDetails principal = new CustomUserDetails(User.builder().idUser(userId).build());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        return userId;
+    }
+}
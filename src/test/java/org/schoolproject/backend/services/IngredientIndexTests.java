@@ -0,0 +1,47 @@
+package org.schoolproject.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Normalisation des libellés d'ingrédients et découpage du texte libre des recettes.
+ */
+class IngredientIndexTests {
+
+    @Test
+    void normalizeStripsQuantitiesUnitsAndArticles() {
+        assertThat(IngredientIndex.normalize("2 c. à soupe d'Huile d'olive (vierge)")).isEqualTo("huile olive");
+        assertThat(IngredientIndex.normalize("1 l de lait")).isEqualTo("lait");
+        assertThat(IngredientIndex.normalize("200g de farine")).isEqualTo("farine");
+        assertThat(IngredientIndex.normalize("3 gousses d'ail")).isEqualTo("ail");
+    }
+
+    @Test
+    void normalizeFoldsAccentsLigaturesAndPlurals() {
+        assertThat(IngredientIndex.normalize("Œufs")).isEqualTo("oeuf");
+        assertThat(IngredientIndex.normalize("Crème fraîche")).isEqualTo("creme fraiche");
+        assertThat(IngredientIndex.normalize("choux")).isEqualTo("chou");
+        // Mots courts laissés tels quels : « riz », « pois »
+        assertThat(IngredientIndex.normalize("riz")).isEqualTo("riz");
+    }
+
+    @Test
+    void normalizeReturnsNullWhenNothingRemains() {
+        assertThat(IngredientIndex.normalize(null)).isNull();
+        assertThat(IngredientIndex.normalize("2 cl")).isNull();
+        assertThat(IngredientIndex.normalize("  ")).isNull();
+    }
+
+    @Test
+    void parseSplitsOnLinesAndSeparatorsWithoutDuplicates() {
+        String text = "200 g de farine\n3 œufs, 1 l de lait ; une pincée de sel\r\n• farine\n\n";
+
+        assertThat(IngredientIndex.parse(text)).containsExactly("farine", "oeuf", "lait", "sel");
+    }
+
+    @Test
+    void parseOfNullIsEmpty() {
+        assertThat(IngredientIndex.parse(null)).isEmpty();
+    }
+}
@@ -0,0 +1,197 @@
+package org.schoolproject.backend.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.schoolproject.backend.dto.ProfileStatsDTO;
+import org.schoolproject.backend.dto.RecipeDTO;
+import org.schoolproject.backend.entities.Recipe;
+import org.schoolproject.backend.mappers.RecipeMapper;
+import org.schoolproject.backend.repositories.FollowerRepository;
+import org.schoolproject.backend.repositories.RecipeRepository;
+import org.schoolproject.backend.repositories.TimelineEntryRepository;
+import org.schoolproject.backend.repositories.UserStatsRepository;
+import org.schoolproject.backend.services.ProfileStatsService;
+import org.schoolproject.backend.services.TimelineService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Partage entre diffusion à l'écriture et lecture à la demande, reprise des lots en échec
+ * et rattrapage d'un auteur qui repasse sous le seuil.
+ */
+class TimelineServiceImplTests {
+
+    private static final long MAX_FOLLOWERS = 100;
+    private static final UUID AUTHOR = UUID.randomUUID();
+    private static final UUID READER = UUID.randomUUID();
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final TimelineEntryRepository timelineEntryRepository = mock(TimelineEntryRepository.class);
+    private final FollowerRepository followerRepository = mock(FollowerRepository.class);
+    private final RecipeRepository recipeRepository = mock(RecipeRepository.class);
+    private final UserStatsRepository userStatsRepository = mock(UserStatsRepository.class);
+    private final RecipeMapper recipeMapper = mock(RecipeMapper.class);
+    private final ProfileStatsService profileStatsService = mock(ProfileStatsService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private TimelineServiceImpl timelineService;
+
+    @BeforeEach
+    void setUp() {
+        timelineService = new TimelineServiceImpl(timelineEntryRepository, followerRepository, recipeRepository,
+                userStatsRepository, recipeMapper, profileStatsService, eventPublisher);
+        ReflectionTestUtils.setField(timelineService, "maxFanOutFollowers", MAX_FOLLOWERS);
+        ReflectionTestUtils.setField(timelineService, "fanOutBatchSize", 2);
+        ReflectionTestUtils.setField(timelineService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(timelineService, "retryBackoffMs", 0L);
+        ReflectionTestUtils.setField(timelineService, "backfillSize", 20);
+        when(recipeMapper.toDto(any(Recipe.class))).thenAnswer(invocation -> {
+            Recipe recipe = invocation.getArgument(0);
+            RecipeDTO dto = new RecipeDTO();
+            dto.setId(recipe.getIdRecipe());
+            return dto;
+        });
+    }
+
+    @Test
+    void fansOutInBatchesBelowThreshold() {
+        followers(MAX_FOLLOWERS);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(timelineEntryRepository.fanOutBatch(eq(AUTHOR), eq(7), eq(NOW), any(UUID.class), eq(2)))
+                .thenReturn(first, second, null);
+
+        timelineService.onRecipePublished(new TimelineService.RecipePublished(AUTHOR, 7, NOW));
+
+        verify(timelineEntryRepository).fanOutBatch(AUTHOR, 7, NOW, new UUID(0L, 0L), 2);
+        verify(timelineEntryRepository).fanOutBatch(AUTHOR, 7, NOW, first, 2);
+        verify(timelineEntryRepository).fanOutBatch(AUTHOR, 7, NOW, second, 2);
+    }
+
+    @Test
+    void skipsFanOutAboveThreshold() {
+        followers(MAX_FOLLOWERS + 1);
+
+        timelineService.onRecipePublished(new TimelineService.RecipePublished(AUTHOR, 7, NOW));
+
+        verify(timelineEntryRepository, never()).fanOutBatch(any(), anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void retriesFailedBatchFromLastServedFollower() {
+        followers(10);
+        UUID first = UUID.randomUUID();
+        when(recipeRepository.existsById(7)).thenReturn(true);
+        when(timelineEntryRepository.fanOutBatch(eq(AUTHOR), eq(7), eq(NOW), any(UUID.class), eq(2)))
+                .thenReturn(first)
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(null);
+
+        timelineService.onRecipePublished(new TimelineService.RecipePublished(AUTHOR, 7, NOW));
+
+        verify(timelineEntryRepository, times(2)).fanOutBatch(AUTHOR, 7, NOW, first, 2);
+    }
+
+    @Test
+    void stopsRetryingOnceRecipeIsDeleted() {
+        followers(10);
+        when(recipeRepository.existsById(7)).thenReturn(false);
+        when(timelineEntryRepository.fanOutBatch(eq(AUTHOR), eq(7), eq(NOW), any(UUID.class), eq(2)))
+                .thenThrow(new DataAccessResourceFailureException("foreign key"));
+
+        timelineService.onRecipePublished(new TimelineService.RecipePublished(AUTHOR, 7, NOW));
+
+        verify(timelineEntryRepository, times(1)).fanOutBatch(any(), anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void fansOutImportedChunkOncePerFollowerBatch() {
+        followers(3);
+        List<Integer> recipeIds = List.of(7, 8, 9);
+        UUID first = UUID.randomUUID();
+        when(timelineEntryRepository.fanOutRecipesBatch(eq(AUTHOR), eq(recipeIds), any(UUID.class), eq(2)))
+                .thenReturn(first).thenReturn(null);
+
+        timelineService.onRecipesPublished(new TimelineService.RecipesPublished(AUTHOR, recipeIds));
+
+        verify(timelineEntryRepository).fanOutRecipesBatch(AUTHOR, recipeIds, new UUID(0L, 0L), 2);
+        verify(timelineEntryRepository).fanOutRecipesBatch(AUTHOR, recipeIds, first, 2);
+        verify(timelineEntryRepository, never()).fanOutBatch(any(), anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void mergesPulledAuthorsWithMaterializedTimeline() {
+        UUID celebrity = UUID.randomUUID();
+        when(timelineEntryRepository.findTimeline(READER, Limit.of(3)))
+                .thenReturn(List.of(recipe(3, NOW.minusHours(1)), recipe(1, NOW.minusHours(3))));
+        when(followerRepository.findFollowedIdsWithFollowersAbove(READER, MAX_FOLLOWERS)).thenReturn(List.of(celebrity));
+        // La recette 1 a été diffusée avant que l'auteur ne dépasse le seuil : présente des deux côtés
+        when(recipeRepository.findLatestByAuthors(List.of(celebrity), Limit.of(3)))
+                .thenReturn(List.of(recipe(4, NOW), recipe(1, NOW.minusHours(3))));
+
+        List<Integer> ids = timelineService.getHomeTimeline(READER, null, 2).getItems().stream()
+                .map(RecipeDTO::getId)
+                .toList();
+
+        assertThat(ids).containsExactly(4, 3);
+    }
+
+    @Test
+    void resumesFanOutWhenUnfollowCrossesThreshold() {
+        when(userStatsRepository.findFollowerCount(AUTHOR)).thenReturn(Optional.of(MAX_FOLLOWERS));
+
+        timelineService.unfollowed(READER, AUTHOR);
+
+        verify(eventPublisher).publishEvent(new TimelineService.FanOutResumed(AUTHOR));
+    }
+
+    @Test
+    void doesNotResumeFanOutAwayFromThreshold() {
+        when(userStatsRepository.findFollowerCount(AUTHOR)).thenReturn(Optional.of(MAX_FOLLOWERS + 5));
+
+        timelineService.unfollowed(READER, AUTHOR);
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void backfillsEveryFollowerOnResume() {
+        UUID first = UUID.randomUUID();
+        when(timelineEntryRepository.backfillFollowersBatch(eq(AUTHOR), any(UUID.class), eq(2), eq(20)))
+                .thenReturn(first).thenReturn(null);
+
+        timelineService.onFanOutResumed(new TimelineService.FanOutResumed(AUTHOR));
+
+        verify(timelineEntryRepository).backfillFollowersBatch(AUTHOR, new UUID(0L, 0L), 2, 20);
+        verify(timelineEntryRepository).backfillFollowersBatch(AUTHOR, first, 2, 20);
+    }
+
+    private void followers(long count) {
+        when(profileStatsService.getProfileStats(AUTHOR))
+                .thenReturn(ProfileStatsDTO.builder().userId(AUTHOR).followers(count).build());
+    }
+
+    private static Recipe recipe(int id, LocalDateTime createdAt) {
+        Recipe recipe = new Recipe();
+        recipe.setIdRecipe(id);
+        recipe.setCreationDate(createdAt);
+        return recipe;
+    }
+}